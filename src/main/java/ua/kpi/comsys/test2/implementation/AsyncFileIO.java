@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Non-blocking load and save of decimal numbers on
+ * <tt>AsynchronousFileChannel</tt>.<p>
+ *
+ * Each completed read is parsed before the next one is issued, and each
+ * write is formatted when the previous one completes, so no thread waits
+ * for the disk. Conversions between scales run in the common pool, not on
+ * the threads of the channels. Cancelling the returned future stops
+ * issuing operations and closes the channel, aborting the one in flight.
+ * Completed loads and saves emit {@link NumberListEvents.FileIO}, as the
+ * blocking ones do.
+ *
+ * @author Alexander Podrubailo
+ *
+ */
+final class AsyncFileIO {
+
+    static final int CHUNK = 1 << 16;
+
+    private AsyncFileIO() {
+    }
+
+
+    /**
+     * Reads the first line of the file as a decimal number and passes its
+     * digits to the factory, or <tt>null</tt> if the line is not a number,
+     * the way <tt>NumberListImpl(File)</tt> reads it. The factory runs in the
+     * common pool.
+     *
+     * @param digits - number of digits of the result for the event.
+     * @param start - start of the operation for {@link NumberListMetrics}.
+     */
+    static <T> CompletableFuture<T> read(Path path, Function<byte[], T> factory, ToIntFunction<? super T> digits,
+            long start) {
+        NumberListEvents.FileIO event = new NumberListEvents.FileIO();
+        event.begin();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException | RuntimeException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        closeOnCompletion(result, channel);
+        Reader<T> reader = new Reader<>(channel, result, factory, start);
+        result.thenAccept(value -> {
+            if (event.shouldCommit()) {
+                event.path = path.toString();
+                event.bytes = reader.position;
+                event.digits = digits.applyAsInt(value);
+                event.commit();
+            }
+        });
+        reader.next();
+        return result;
+    }
+
+
+    /**
+     * Converts digits in the given scale to decimal and writes them to the file.
+     * Conversion runs in the common pool.
+     *
+     * @param start - start of the operation for {@link NumberListMetrics}.
+     */
+    static CompletableFuture<Void> write(Path path, byte[] digits, int radix, long start) {
+        NumberListEvents.FileIO event = new NumberListEvents.FileIO();
+        event.begin();
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        CompletableFuture.runAsync(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            byte[] decimal;
+            AsynchronousFileChannel channel;
+            try {
+                decimal = digits.length == 0 ? digits : Digits.convert(digits, radix, 10);
+                channel = AsynchronousFileChannel.open(path, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            closeOnCompletion(result, channel);
+            Writer writer = new Writer(channel, result, decimal, start);
+            result.thenRun(() -> {
+                if (event.shouldCommit()) {
+                    event.path = path.toString();
+                    event.save = true;
+                    event.bytes = writer.position;
+                    event.digits = digits.length;
+                    event.commit();
+                }
+            });
+            writer.next();
+        });
+        return result;
+    }
+
+
+    private static void closeOnCompletion(CompletableFuture<?> result, AsynchronousFileChannel channel) {
+        result.whenComplete((r, e) -> {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // the result is already known
+            }
+        });
+    }
+
+
+    private static final class Reader<T> implements CompletionHandler<Integer, Void> {
+        private final AsynchronousFileChannel channel;
+        private final CompletableFuture<T> result;
+        private final Function<byte[], T> factory;
+        private final long start;
+        private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK);
+        private long position;
+        private byte[] digits = new byte[64];
+        private int count;
+        private boolean valid = true;
+        /** Whitespace was seen after the digits. */
+        private boolean ended;
+
+        Reader(AsynchronousFileChannel channel, CompletableFuture<T> result, Function<byte[], T> factory,
+                long start) {
+            this.channel = channel;
+            this.result = result;
+            this.factory = factory;
+            this.start = start;
+        }
+
+        void next() {
+            if (!result.isDone()) {
+                buffer.clear();
+                channel.read(buffer, position, null, this);
+            }
+        }
+
+        @Override
+        public void completed(Integer n, Void attachment) {
+            if (result.isDone()) {
+                return;
+            }
+            if (n < 0) {
+                finish();
+                return;
+            }
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < n; i++) {
+                int c = bytes[i] & 0xFF;
+                if (c == '\n' || c == '\r') {
+                    position += i;
+                    finish();
+                    return;
+                }
+                parse(c);
+            }
+            position += n;
+            next();
+        }
+
+        /**
+         * Parses character of the line, which may have whitespace around the number.
+         */
+        private void parse(int c) {
+            if (c <= ' ') {
+                ended = count > 0;
+                return;
+            }
+            if (ended || c < '0' || c > '9') {
+                valid = false;
+                return;
+            }
+            if (count == digits.length) {
+                digits = Arrays.copyOf(digits, count * 2);
+            }
+            digits[count++] = (byte) (c - '0');
+        }
+
+        /**
+         * Passes the digits to the factory in the common pool, so the
+         * conversion does not hold the thread of the channel.
+         */
+        private void finish() {
+            byte[] decimal = valid && count > 0 ? Arrays.copyOf(digits, count) : null;
+            CompletableFuture.runAsync(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    T value = factory.apply(decimal);
+                    NumberListMetrics.record(NumberListMetrics.LOAD, start);
+                    NumberListMetrics.recordRead(start, position);
+                    result.complete(value);
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+
+        @Override
+        public void failed(Throwable e, Void attachment) {
+            result.completeExceptionally(e);
+        }
+    }
+
+
+    private static final class Writer implements CompletionHandler<Integer, Void> {
+        private final AsynchronousFileChannel channel;
+        private final CompletableFuture<Void> result;
+        private final byte[] digits;
+        private final long start;
+        private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK);
+        private int formatted;
+        private long position;
+
+        Writer(AsynchronousFileChannel channel, CompletableFuture<Void> result, byte[] digits, long start) {
+            this.channel = channel;
+            this.result = result;
+            this.digits = digits;
+            this.start = start;
+            buffer.limit(0);
+        }
+
+        /**
+         * Writes the rest of the buffer, formatting the next chunk of digits
+         * into it when it is empty.
+         */
+        void next() {
+            if (result.isDone()) {
+                return;
+            }
+            if (!buffer.hasRemaining()) {
+                if (formatted == digits.length) {
+                    NumberListMetrics.record(NumberListMetrics.SAVE, start);
+                    NumberListMetrics.recordWritten(start, position);
+                    result.complete(null);
+                    return;
+                }
+                buffer.clear();
+                int end = Math.min(digits.length, formatted + CHUNK);
+                for (int i = formatted; i < end; i++) {
+                    buffer.put((byte) Digits.toChar(digits[i]));
+                }
+                formatted = end;
+                buffer.flip();
+            }
+            channel.write(buffer, position, null, this);
+        }
+
+        @Override
+        public void completed(Integer n, Void attachment) {
+            position += n;
+            next();
+        }
+
+        @Override
+        public void failed(Throwable e, Void attachment) {
+            result.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.Arrays;
+
+/**
+ * Comparison of digits, linked into nodes, done block by block.<p>
+ *
+ * Digits of both lists are gathered from the nodes into contiguous blocks
+ * first, walking the two chains in one loop, then the blocks are compared
+ * by <tt>Arrays.mismatch</tt>, which the JVM runs with vector instructions.
+ * Blocks start small and double up to {@value #SIZE} digits, so lists,
+ * differing near the start, stay cheap to compare. Blocks are thread-local
+ * and reused, so the comparison does not allocate.
+ *
+ * @author Alexander Podrubailo
+ *
+ */
+final class DigitBlocks {
+
+    /** Largest block of digits, gathered at once. */
+    static final int SIZE = 256;
+
+    /** First block of a comparison. */
+    static final int FIRST = 16;
+
+    private static final ThreadLocal<byte[][]> BLOCKS = ThreadLocal.withInitial(() -> new byte[2][SIZE]);
+
+    private DigitBlocks() {
+    }
+
+
+    /**
+     * Compares digits of <tt>length</tt> nodes, starting at <tt>x</tt> and
+     * <tt>y</tt>, in the order of <tt>next</tt> links.
+     *
+     * @return negative, zero or positive as the first differing digit of
+     *         <tt>x</tt> is less than, equal to or greater than that of <tt>y</tt>.
+     */
+    static int compare(Node x, Node y, int length) {
+        byte[][] blocks = BLOCKS.get();
+        byte[] a = blocks[0];
+        byte[] b = blocks[1];
+        for (int offset = 0, block = FIRST; offset < length; offset += block, block = Math.min(SIZE, block * 2)) {
+            int n = Math.min(block, length - offset);
+            for (int i = 0; i < n; i++) {
+                a[i] = x.value;
+                b[i] = y.value;
+                x = x.next;
+                y = y.next;
+            }
+            int i = Arrays.mismatch(a, 0, n, b, 0, n);
+            if (i >= 0) {
+                return Byte.compare(a[i], b[i]);
+            }
+        }
+        return 0;
+    }
+}
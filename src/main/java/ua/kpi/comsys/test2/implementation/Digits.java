@@ -0,0 +1,545 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Arithmetic over numbers, stored as arrays of digits in some scale
+ * of notation, most significant digit first.<p>
+ *
+ * Results are always normalized: no leading zeros, zero is a single digit.
+ * Operands are never modified.
+ *
+ * @author Alexander Podrubailo
+ *
+ */
+final class Digits {
+
+    private static final char[] CHARS = "0123456789ABCDEF".toCharArray();
+
+    private static final byte[] ZERO = {0};
+
+    /** Longer numbers are converted to other scale by splitting. */
+    private static final int SPLIT_DIGITS = 256;
+
+    /** Shorter operand, from which multiplication packs digits into limbs. */
+    private static final int PACKED_DIGITS = 64;
+
+    /** Shorter operand in limbs, from which limbs are multiplied by Karatsuba. */
+    private static final int KARATSUBA_LIMBS = 32;
+
+    /** Limbs are below this bound, so products of two fit in a <tt>long</tt> with room for sums. */
+    private static final long LIMB_BOUND = 1 << 28;
+
+    private Digits() {
+    }
+
+
+    /**
+     * Returns character, representing the digit.
+     */
+    static char toChar(byte digit) {
+        return CHARS[digit];
+    }
+
+
+    /**
+     * Parses number in the given scale of notation.
+     *
+     * @return digits of the number or <tt>null</tt> if the value is not a valid number.
+     */
+    static byte[] parse(CharSequence value, int radix) {
+        if (value.length() == 0) {
+            return null;
+        }
+        byte[] result = new byte[value.length()];
+        for (int i = 0; i < result.length; i++) {
+            int digit = Character.digit(value.charAt(i), radix);
+            if (digit < 0) {
+                return null;
+            }
+            result[i] = (byte) digit;
+        }
+        return result;
+    }
+
+
+    /**
+     * Strips leading zeros. Returns the same array if there are none.
+     */
+    static byte[] normalize(byte[] a) {
+        int start = 0;
+        while (start < a.length && a[start] == 0) {
+            start++;
+        }
+        if (start == a.length) {
+            return ZERO.clone();
+        }
+        if (start == 0) {
+            return a;
+        }
+        byte[] result = new byte[a.length - start];
+        System.arraycopy(a, start, result, 0, result.length);
+        return result;
+    }
+
+
+    /**
+     * Converts number from one scale of notation to another.<p>
+     *
+     * Between power of two scales bits of the digits are regrouped in linear
+     * time. Numbers up to {@value #SPLIT_DIGITS} digits are divided by the
+     * largest power of the target radix that fits in an <tt>int</tt>, so each
+     * pass over the digits yields several digits of the result. Longer ones
+     * are split as <tt>hi * from^m + lo</tt>, where <tt>m</tt> is the split
+     * size times a power of two, and the halves are converted recursively and
+     * joined by {@link #multiply(byte[], byte[], int)}.
+     */
+    static byte[] convert(byte[] digits, int from, int to) {
+        byte[] a = normalize(digits);
+        if (from == to) {
+            return a == digits ? a.clone() : a;
+        }
+        if (isPowerOfTwo(from) && isPowerOfTwo(to)) {
+            return regroup(a, from, to);
+        }
+        if (a.length > SPLIT_DIGITS) {
+            return convert(a, 0, a.length, from, to, new ArrayList<>());
+        }
+        return convertByDivision(a, from, to);
+    }
+
+
+    /**
+     * Converts digits <tt>[begin, end)</tt>, caching powers
+     * <tt>from^(SPLIT_DIGITS * 2^j)</tt> in the target scale.
+     */
+    private static byte[] convert(byte[] a, int begin, int end, int from, int to, List<byte[]> powers) {
+        if (end - begin <= SPLIT_DIGITS) {
+            return convertByDivision(normalize(Arrays.copyOfRange(a, begin, end)), from, to);
+        }
+        int j = 0;
+        while (SPLIT_DIGITS << (j + 1) < end - begin) {
+            j++;
+        }
+        while (powers.size() <= j) {
+            if (powers.isEmpty()) {
+                byte[] power = new byte[SPLIT_DIGITS + 1];
+                power[0] = 1;
+                powers.add(convertByDivision(power, from, to));
+            } else {
+                byte[] last = powers.get(powers.size() - 1);
+                powers.add(multiply(last, last, to));
+            }
+        }
+        int split = end - (SPLIT_DIGITS << j);
+        byte[] hi = convert(a, begin, split, from, to, powers);
+        byte[] lo = convert(a, split, end, from, to, powers);
+        return add(multiply(hi, powers.get(j), to), lo, to);
+    }
+
+
+    private static byte[] convertByDivision(byte[] a, int from, int to) {
+        int perChunk = 1;
+        long chunk = to;
+        while (chunk * to * from <= Integer.MAX_VALUE) {
+            chunk *= to;
+            perChunk++;
+        }
+        int[] work = new int[a.length];
+        for (int i = 0; i < a.length; i++) {
+            work[i] = a[i];
+        }
+        double ratio = Math.log(from) / Math.log(to);
+        byte[] reversed = new byte[(int) (a.length * ratio) + perChunk + 1];
+        int count = 0;
+        int start = 0;
+        while (start < work.length) {
+            long rem = 0;
+            for (int i = start; i < work.length; i++) {
+                rem = rem * from + work[i];
+                work[i] = (int) (rem / chunk);
+                rem %= chunk;
+            }
+            while (start < work.length && work[start] == 0) {
+                start++;
+            }
+            for (int i = 0; i < perChunk && (rem != 0 || start < work.length); i++) {
+                reversed[count++] = (byte) (rem % to);
+                rem /= to;
+            }
+        }
+        if (count == 0) {
+            return ZERO.clone();
+        }
+        byte[] result = new byte[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = reversed[count - 1 - i];
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns value of normalized number.
+     *
+     * @return the value or -1 if the number is not normalized or does not fit in a <tt>long</tt>.
+     */
+    static long toLong(byte[] digits, int radix) {
+        if (digits.length == 0 || digits[0] == 0 && digits.length > 1) {
+            return -1;
+        }
+        long value = 0;
+        for (byte digit : digits) {
+            if (value > (Long.MAX_VALUE - digit) / radix) {
+                return -1;
+            }
+            value = value * radix + digit;
+        }
+        return value;
+    }
+
+
+    /**
+     * Returns digits of the non-negative value in the given scale of notation.
+     */
+    static byte[] valueOf(long value, int radix) {
+        byte[] result = new byte[length(value, radix)];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = (byte) (value % radix);
+            value /= radix;
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns number of digits of the non-negative value in the given scale of notation.
+     */
+    static int length(long value, int radix) {
+        if (isPowerOfTwo(radix)) {
+            int bits = Integer.numberOfTrailingZeros(radix);
+            return (64 - Long.numberOfLeadingZeros(value | 1) + bits - 1) / bits;
+        }
+        int length = 1;
+        for (long rest = value / radix; rest != 0; rest /= radix) {
+            length++;
+        }
+        return length;
+    }
+
+
+    static boolean isPowerOfTwo(int radix) {
+        return (radix & (radix - 1)) == 0;
+    }
+
+
+    /**
+     * Converts normalized number between two power of two scales by
+     * regrouping its bits, least significant first. Takes linear time.
+     */
+    private static byte[] regroup(byte[] a, int from, int to) {
+        int fromBits = Integer.numberOfTrailingZeros(from);
+        int toBits = Integer.numberOfTrailingZeros(to);
+        int mask = to - 1;
+        byte[] result = new byte[(int) (((long) a.length * fromBits + toBits - 1) / toBits)];
+        int k = result.length;
+        int acc = 0;
+        int bits = 0;
+        for (int i = a.length - 1; i >= 0; i--) {
+            acc |= a[i] << bits;
+            bits += fromBits;
+            while (bits >= toBits) {
+                result[--k] = (byte) (acc & mask);
+                acc >>>= toBits;
+                bits -= toBits;
+            }
+        }
+        if (bits > 0) {
+            result[--k] = (byte) acc;
+        }
+        return normalize(result);
+    }
+
+
+    /**
+     * Compares two normalized numbers. Digits are compared by
+     * <tt>Arrays.mismatch</tt>, which the JVM runs with vector instructions.
+     */
+    static int compare(byte[] a, byte[] b) {
+        if (a.length != b.length) {
+            return a.length < b.length ? -1 : 1;
+        }
+        int i = Arrays.mismatch(a, b);
+        if (i < 0) {
+            return 0;
+        }
+        return a[i] < b[i] ? -1 : 1;
+    }
+
+
+    static byte[] add(byte[] a, byte[] b, int radix) {
+        byte[] result = new byte[Math.max(a.length, b.length) + 1];
+        int carry = 0;
+        for (int i = a.length - 1, j = b.length - 1, k = result.length - 1; k >= 0; i--, j--, k--) {
+            int sum = carry + (i >= 0 ? a[i] : 0) + (j >= 0 ? b[j] : 0);
+            result[k] = (byte) (sum % radix);
+            carry = sum / radix;
+        }
+        return normalize(result);
+    }
+
+
+    /**
+     * @throws ArithmeticException if the result is negative.
+     */
+    static byte[] subtract(byte[] a, byte[] b, int radix) {
+        byte[] x = normalize(a);
+        byte[] y = normalize(b);
+        if (compare(x, y) < 0) {
+            throw new ArithmeticException("Result is negative");
+        }
+        byte[] result = new byte[x.length];
+        int borrow = 0;
+        for (int i = x.length - 1, j = y.length - 1; i >= 0; i--, j--) {
+            int diff = x[i] - borrow - (j >= 0 ? y[j] : 0);
+            borrow = diff < 0 ? 1 : 0;
+            result[i] = (byte) (diff + borrow * radix);
+        }
+        return normalize(result);
+    }
+
+
+    /**
+     * Schoolbook product for short operands. Longer ones are packed into
+     * limbs of several digits and multiplied by Karatsuba.
+     */
+    static byte[] multiply(byte[] a, byte[] b, int radix) {
+        if (Math.min(a.length, b.length) >= PACKED_DIGITS) {
+            int k = 1;
+            long base = radix;
+            while (base * radix < LIMB_BOUND) {
+                base *= radix;
+                k++;
+            }
+            int[] product = multiply(pack(a, radix, k), pack(b, radix, k), (int) base);
+            return unpack(product, radix, k);
+        }
+        int[] acc = new int[a.length + b.length];
+        for (int i = a.length - 1; i >= 0; i--) {
+            int carry = 0;
+            for (int j = b.length - 1; j >= 0; j--) {
+                int cur = acc[i + j + 1] + a[i] * b[j] + carry;
+                acc[i + j + 1] = cur % radix;
+                carry = cur / radix;
+            }
+            acc[i] += carry;
+        }
+        byte[] result = new byte[acc.length];
+        for (int i = 0; i < acc.length; i++) {
+            result[i] = (byte) acc[i];
+        }
+        return normalize(result);
+    }
+
+
+    /**
+     * Packs digits into limbs of <tt>k</tt> digits, least significant first.
+     */
+    private static int[] pack(byte[] digits, int radix, int k) {
+        int[] limbs = new int[(digits.length + k - 1) / k];
+        for (int i = 0; i < limbs.length; i++) {
+            int end = digits.length - i * k;
+            int value = 0;
+            for (int j = Math.max(0, end - k); j < end; j++) {
+                value = value * radix + digits[j];
+            }
+            limbs[i] = value;
+        }
+        return limbs;
+    }
+
+
+    private static byte[] unpack(int[] limbs, int radix, int k) {
+        byte[] result = new byte[limbs.length * k];
+        for (int i = 0; i < limbs.length; i++) {
+            int value = limbs[i];
+            for (int j = result.length - 1 - i * k; j >= result.length - (i + 1) * k; j--) {
+                result[j] = (byte) (value % radix);
+                value /= radix;
+            }
+        }
+        return normalize(result);
+    }
+
+
+    /**
+     * Karatsuba product of limbs in the given base, least significant first.
+     * The result has as many limbs as both operands.
+     */
+    private static int[] multiply(int[] x, int[] y, int base) {
+        if (x.length < y.length) {
+            int[] t = x;
+            x = y;
+            y = t;
+        }
+        if (y.length < KARATSUBA_LIMBS) {
+            return multiplySchoolbook(x, y, base);
+        }
+        int h = (x.length + 1) / 2;
+        int[] x0 = Arrays.copyOfRange(x, 0, h);
+        int[] x1 = Arrays.copyOfRange(x, h, x.length);
+        int[] result = new int[x.length + y.length];
+        if (y.length <= h) {
+            addInto(result, multiply(x0, y, base), 0, base);
+            addInto(result, multiply(x1, y, base), h, base);
+            return result;
+        }
+        int[] y0 = Arrays.copyOfRange(y, 0, h);
+        int[] y1 = Arrays.copyOfRange(y, h, y.length);
+        int[] z0 = multiply(x0, y0, base);
+        int[] z2 = multiply(x1, y1, base);
+        int[] z1 = multiply(sum(x0, x1, base), sum(y0, y1, base), base);
+        subtractFrom(z1, z0, base);
+        subtractFrom(z1, z2, base);
+        addInto(result, z0, 0, base);
+        addInto(result, z1, h, base);
+        addInto(result, z2, 2 * h, base);
+        return result;
+    }
+
+
+    /**
+     * Sums products in <tt>long</tt>s and carries once: fewer than
+     * {@value #KARATSUBA_LIMBS} products of limbs fall into one position.
+     */
+    private static int[] multiplySchoolbook(int[] x, int[] y, int base) {
+        long[] acc = new long[x.length + y.length];
+        for (int i = 0; i < x.length; i++) {
+            long xi = x[i];
+            for (int j = 0; j < y.length; j++) {
+                acc[i + j] += xi * y[j];
+            }
+        }
+        int[] result = new int[acc.length];
+        long carry = 0;
+        for (int i = 0; i < acc.length; i++) {
+            long cur = acc[i] + carry;
+            result[i] = (int) (cur % base);
+            carry = cur / base;
+        }
+        return result;
+    }
+
+
+    private static int[] sum(int[] x, int[] y, int base) {
+        int[] result = new int[Math.max(x.length, y.length) + 1];
+        addInto(result, x, 0, base);
+        addInto(result, y, 0, base);
+        return result;
+    }
+
+
+    /**
+     * Adds <tt>a * base^shift</tt> to <tt>r</tt>. Limbs beyond <tt>r</tt>
+     * must be zero.
+     */
+    private static void addInto(int[] r, int[] a, int shift, int base) {
+        int carry = 0;
+        for (int i = 0; shift + i < r.length && (i < a.length || carry != 0); i++) {
+            int s = r[shift + i] + carry + (i < a.length ? a[i] : 0);
+            carry = s >= base ? 1 : 0;
+            r[shift + i] = s - carry * base;
+        }
+    }
+
+
+    /**
+     * Subtracts <tt>a</tt> from <tt>r</tt>, which is not less than <tt>a</tt>.
+     */
+    private static void subtractFrom(int[] r, int[] a, int base) {
+        int borrow = 0;
+        for (int i = 0; i < r.length && (i < a.length || borrow != 0); i++) {
+            int d = r[i] - borrow - (i < a.length ? a[i] : 0);
+            borrow = d < 0 ? 1 : 0;
+            r[i] = d + borrow * base;
+        }
+    }
+
+
+    /**
+     * @throws ArithmeticException if the divisor is zero.
+     */
+    static byte[] divide(byte[] a, byte[] b, int radix) {
+        return divideAndRemainder(a, b, radix)[0];
+    }
+
+
+    /**
+     * @throws ArithmeticException if the divisor is zero.
+     */
+    static byte[] remainder(byte[] a, byte[] b, int radix) {
+        return divideAndRemainder(a, b, radix)[1];
+    }
+
+
+    /**
+     * Schoolbook long division, one quotient digit per digit of the dividend.
+     */
+    private static byte[][] divideAndRemainder(byte[] a, byte[] b, int radix) {
+        byte[] divisor = normalize(b);
+        if (divisor.length == 1 && divisor[0] == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        byte[] dividend = normalize(a);
+        byte[] quotient = new byte[dividend.length];
+        byte[] rem = ZERO.clone();
+        for (int i = 0; i < dividend.length; i++) {
+            byte[] shifted = new byte[rem.length + 1];
+            System.arraycopy(rem, 0, shifted, 0, rem.length);
+            shifted[rem.length] = dividend[i];
+            rem = normalize(shifted);
+            int q = 0;
+            while (compare(rem, divisor) >= 0) {
+                rem = subtract(rem, divisor, radix);
+                q++;
+            }
+            quotient[i] = (byte) q;
+        }
+        return new byte[][] {normalize(quotient), rem};
+    }
+
+
+    static byte[] and(byte[] a, byte[] b, int radix) {
+        byte[] x = convert(a, radix, 2);
+        byte[] y = convert(b, radix, 2);
+        int length = Math.min(x.length, y.length);
+        byte[] result = new byte[length];
+        for (int i = 1; i <= length; i++) {
+            result[length - i] = (byte) (x[x.length - i] & y[y.length - i]);
+        }
+        return convert(result, 2, radix);
+    }
+
+
+    static byte[] or(byte[] a, byte[] b, int radix) {
+        byte[] x = convert(a, radix, 2);
+        byte[] y = convert(b, radix, 2);
+        int length = Math.max(x.length, y.length);
+        byte[] result = new byte[length];
+        for (int i = 1; i <= length; i++) {
+            int bx = i <= x.length ? x[x.length - i] : 0;
+            int by = i <= y.length ? y[y.length - i] : 0;
+            result[length - i] = (byte) (bx | by);
+        }
+        return convert(result, 2, radix);
+    }
+}
@@ -0,0 +1,532 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Converts a number, written in a text file, to other scale of notation
+ * without loading the whole number into memory.<p>
+ *
+ * Digits of the input are split recursively: the value of the digits is
+ * <tt>hi * from^m + lo</tt>, where <tt>lo</tt> are the last <tt>m</tt>
+ * digits and <tt>m</tt> is the leaf size times a power of two. Both halves
+ * are converted recursively, ranges, short enough for the memory limit, in
+ * memory by {@link Digits}. The powers <tt>from^m</tt> in the target scale
+ * are computed once, by squaring. Intermediate numbers, too big for the
+ * limit, including the powers, are spilled to temp files, least significant
+ * digit first; they are multiplied by Karatsuba on halves of the files and
+ * added in a single streaming pass. The result is written from its most
+ * significant digit.<p>
+ *
+ * Memory use is bounded by the limit approximately: the estimate assumes
+ * {@value #BYTES_PER_DIGIT} bytes per digit held in memory, and buffers of
+ * a streaming pass take below a quarter of the limit.
+ *
+ * @author Alexander Podrubailo
+ *
+ */
+final class FileScaleConverter {
+
+    /** Estimated memory per digit of a number, converted in memory. */
+    static final int BYTES_PER_DIGIT = 16;
+
+    /**
+     * Smallest accepted memory limit. Below it ranges, converted and
+     * multiplied in memory, get so short, that temp files of a few digits
+     * make the conversion impractically slow.
+     */
+    static final long MIN_MEMORY = 32 << 10;
+
+    private static final int MAX_BUFFER = 1 << 16;
+
+    /**
+     * Buffers, a streaming pass holds at most: five readers, the block of
+     * digits and the block of sums. Buffers take a share of the limit per
+     * {@value} buffers, so a pass holds below a quarter of the limit.
+     */
+    private static final int BUFFER_SHARES = 32;
+
+    /** Numbers this short are converted by {@link Digits#convert(byte[], int, int)} directly. */
+    private static final int LEAF_DIGITS = 256;
+
+    private final int from;
+
+    private final int to;
+
+    private final long memoryLimit;
+
+    /** Size of each buffer, see {@link #BUFFER_SHARES}. */
+    private final int bufferSize;
+
+    private final int leafDigits;
+
+    private final Path dir;
+
+    /** <tt>from^(leafDigits * 2^j)</tt> in the target scale. */
+    private final List<Part> powers = new ArrayList<>();
+
+    private FileChannel input;
+
+    private FileScaleConverter(int from, int to, long memoryLimit, Path dir) {
+        this.from = from;
+        this.to = to;
+        this.memoryLimit = memoryLimit;
+        this.bufferSize = (int) Math.min(MAX_BUFFER, memoryLimit / BUFFER_SHARES);
+        this.leafDigits = (int) Math.min(LEAF_DIGITS, memoryLimit / BYTES_PER_DIGIT);
+        this.dir = dir;
+    }
+
+
+    /**
+     * Converts number from the <tt>in</tt> file in scale <tt>from</tt> to
+     * scale <tt>to</tt> and writes it to the <tt>out</tt> file. Whitespace
+     * around the number is ignored. Empty input gives empty output.
+     *
+     * @throws NumberFormatException if the input is not a number in scale <tt>from</tt>.
+     * @throws IllegalArgumentException if a radix is not in 2..16 or the memory limit is too small.
+     */
+    static void convert(Path in, int from, Path out, int to, long memoryLimit) throws IOException {
+        if (from < 2 || from > 16 || to < 2 || to > 16) {
+            throw new IllegalArgumentException("Unsupported scale of notation: " + from + " -> " + to);
+        }
+        if (memoryLimit < MIN_MEMORY) {
+            throw new IllegalArgumentException("Memory limit is below " + MIN_MEMORY + " bytes: " + memoryLimit);
+        }
+        Path dir = Files.createTempDirectory("numberlist");
+        try {
+            new FileScaleConverter(from, to, memoryLimit, dir).convert(in, out);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+
+    private void convert(Path in, Path out) throws IOException {
+        Path digits = dir.resolve("input");
+        long length = normalize(in, digits);
+        if (length < 0) {
+            Files.write(out, new byte[0]);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(digits)) {
+            input = channel;
+            writeResult(parse(0, length), out);
+        }
+    }
+
+
+    /**
+     * Copies digits of the input to the <tt>digits</tt> file as ASCII, checking
+     * them and dropping surrounding whitespace and leading zeros.
+     *
+     * @return number of digits written, or -1 if the input is empty.
+     */
+    private long normalize(Path in, Path digitsFile) throws IOException {
+        long digits = 0;
+        boolean seen = false;
+        boolean ended = false;
+        char[] buffer = new char[bufferSize];
+        try (Reader reader = reader(in); Writer writer = writer(digitsFile)) {
+            for (int n; (n = reader.read(buffer)) > 0; ) {
+                for (int i = 0; i < n; i++) {
+                    char c = buffer[i];
+                    if (Character.isWhitespace(c)) {
+                        ended = seen;
+                        continue;
+                    }
+                    int digit = Character.digit(c, from);
+                    if (ended || digit < 0) {
+                        throw new NumberFormatException("Not a number in scale " + from + ": " + c);
+                    }
+                    seen = true;
+                    if (digits > 0 || digit != 0) {
+                        writer.write(Digits.toChar((byte) digit));
+                        digits++;
+                    }
+                }
+            }
+            if (seen && digits == 0) {
+                writer.write('0');
+                digits = 1;
+            }
+        }
+        return seen ? digits : -1;
+    }
+
+
+    /**
+     * Converts digits <tt>[begin, end)</tt> of the normalized input.
+     */
+    private Part parse(long begin, long end) throws IOException {
+        if ((end - begin) * BYTES_PER_DIGIT <= memoryLimit) {
+            byte[] digits = new byte[(int) (end - begin)];
+            readFully(input, ByteBuffer.wrap(digits), begin);
+            for (int i = 0; i < digits.length; i++) {
+                digits[i] = (byte) Character.digit(digits[i], from);
+            }
+            return new Part(parse(digits, 0, digits.length));
+        }
+        int j = level(end - begin);
+        long split = end - ((long) leafDigits << j);
+        Part hi = parse(begin, split);
+        Part lo = parse(split, end);
+        Part product = multiply(hi, power(j));
+        release(hi);
+        Part result = add(product, lo);
+        release(product);
+        release(lo);
+        return result;
+    }
+
+
+    private byte[] parse(byte[] digits, int begin, int end) throws IOException {
+        if (end - begin <= leafDigits) {
+            return Digits.convert(Arrays.copyOfRange(digits, begin, end), from, to);
+        }
+        int j = level(end - begin);
+        int split = end - (leafDigits << j);
+        byte[] hi = parse(digits, begin, split);
+        byte[] lo = parse(digits, split, end);
+        return Digits.add(Digits.multiply(hi, load(power(j)), to), lo, to);
+    }
+
+
+    /**
+     * Returns the largest <tt>j</tt>, for which <tt>leafDigits * 2^j</tt>
+     * is less than the length.
+     */
+    private int level(long length) {
+        int j = 0;
+        while (((long) leafDigits << (j + 1)) < length) {
+            j++;
+        }
+        return j;
+    }
+
+
+    private Part power(int j) throws IOException {
+        while (powers.size() <= j) {
+            if (powers.isEmpty()) {
+                byte[] one = new byte[leafDigits + 1];
+                one[0] = 1;
+                powers.add(new Part(Digits.convert(one, from, to)));
+            } else {
+                Part last = powers.get(powers.size() - 1);
+                powers.add(multiply(last, last));
+            }
+        }
+        return powers.get(j);
+    }
+
+
+    /**
+     * Multiplies in memory if both operands fit the limit, otherwise by
+     * Karatsuba on halves of the operands, spilling the products.
+     */
+    private Part multiply(Part a, Part b) throws IOException {
+        if ((a.length + b.length) * BYTES_PER_DIGIT <= memoryLimit) {
+            return new Part(Digits.multiply(load(a), load(b), to));
+        }
+        if (a.length < b.length) {
+            Part t = a;
+            a = b;
+            b = t;
+        }
+        long h = (a.length + 1) / 2;
+        Part a0 = a.low(h);
+        Part a1 = a.high(h);
+        if (b.length <= h) {
+            Part p0 = multiply(a0, b);
+            Part p1 = multiply(a1, b);
+            Part result = combine(new Part[] {p0, p1}, new long[] {0, h}, new int[] {1, 1});
+            release(p0);
+            release(p1);
+            return result;
+        }
+        Part b0 = b.low(h);
+        Part b1 = b.high(h);
+        Part z0 = multiply(a0, b0);
+        Part z2 = multiply(a1, b1);
+        Part sa = add(a0, a1);
+        Part sb = add(b0, b1);
+        Part z1 = multiply(sa, sb);
+        release(sa);
+        release(sb);
+        // z0 + (z1 - z0 - z2) * to^h + z2 * to^2h
+        Part result = combine(new Part[] {z0, z1, z0, z2, z2}, new long[] {0, h, h, h, 2 * h},
+                new int[] {1, 1, -1, -1, 1});
+        release(z0);
+        release(z1);
+        release(z2);
+        return result;
+    }
+
+
+    private Part add(Part a, Part b) throws IOException {
+        if (a.digits != null && b.digits != null) {
+            return new Part(Digits.add(a.digits, b.digits, to));
+        }
+        return combine(new Part[] {a, b}, new long[] {0, 0}, new int[] {1, 1});
+    }
+
+
+    /**
+     * Writes sum of the parts, multiplied by signs and shifted by the given
+     * numbers of digits, to a temp file in one pass. The sum must be
+     * non-negative.
+     */
+    private Part combine(Part[] parts, long[] shifts, int[] signs) throws IOException {
+        long length = 0;
+        for (int i = 0; i < parts.length; i++) {
+            length = Math.max(length, parts[i].length + shifts[i]);
+        }
+        length++;
+        Path path = Files.createTempFile(dir, "part", null);
+        DigitReader[] readers = new DigitReader[parts.length];
+        try (OutputStream out = Files.newOutputStream(path)) {
+            for (int i = 0; i < parts.length; i++) {
+                readers[i] = new DigitReader(parts[i], shifts[i]);
+            }
+            byte[] block = new byte[bufferSize];
+            // at most three digits are added and two subtracted, so sums fit in bytes
+            byte[] sums = new byte[bufferSize];
+            int carry = 0;
+            for (long position = 0; position < length; position += block.length) {
+                int n = (int) Math.min(block.length, length - position);
+                Arrays.fill(sums, 0, n, (byte) 0);
+                for (int i = 0; i < parts.length; i++) {
+                    readers[i].read(block, n);
+                    for (int k = 0; k < n; k++) {
+                        sums[k] += signs[i] * block[k];
+                    }
+                }
+                for (int k = 0; k < n; k++) {
+                    int sum = sums[k] + carry;
+                    int digit = sum % to;
+                    carry = sum / to;
+                    if (digit < 0) {
+                        digit += to;
+                        carry--;
+                    }
+                    block[k] = (byte) digit;
+                }
+                out.write(block, 0, n);
+            }
+            if (carry != 0) {
+                throw new IllegalStateException("Negative sum");
+            }
+        } finally {
+            for (DigitReader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+        return new Part(path, 0, length, true);
+    }
+
+
+    /**
+     * Returns digits of the part in memory, most significant first.
+     */
+    private byte[] load(Part part) throws IOException {
+        if (part.digits != null) {
+            return part.digits;
+        }
+        byte[] digits = new byte[(int) part.length];
+        try (FileChannel channel = FileChannel.open(part.path)) {
+            readFully(channel, ByteBuffer.wrap(digits), part.offset);
+        }
+        for (int i = 0, j = digits.length - 1; i < j; i++, j--) {
+            byte t = digits[i];
+            digits[i] = digits[j];
+            digits[j] = t;
+        }
+        return digits;
+    }
+
+
+    private static void release(Part part) throws IOException {
+        if (part.temp) {
+            Files.deleteIfExists(part.path);
+        }
+    }
+
+
+    /**
+     * Writes the result from the most significant digit, dropping leading zeros.
+     */
+    private void writeResult(Part result, Path out) throws IOException {
+        try (OutputStream writer = new BufferedOutputStream(Files.newOutputStream(out), bufferSize)) {
+            if (result.digits != null) {
+                for (byte digit : result.digits) {
+                    writer.write(Digits.toChar(digit));
+                }
+                return;
+            }
+            boolean leading = true;
+            ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+            try (FileChannel channel = FileChannel.open(result.path)) {
+                for (long end = result.length; end > 0; ) {
+                    int n = (int) Math.min(bufferSize, end);
+                    end -= n;
+                    buffer.clear().limit(n);
+                    readFully(channel, buffer, result.offset + end);
+                    for (int i = n - 1; i >= 0; i--) {
+                        byte digit = buffer.get(i);
+                        if (leading && digit == 0 && (end > 0 || i > 0)) {
+                            continue;
+                        }
+                        leading = false;
+                        writer.write(Digits.toChar(digit));
+                    }
+                }
+            }
+        }
+    }
+
+
+    private Reader reader(Path path) throws IOException {
+        return new BufferedReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.US_ASCII),
+                bufferSize);
+    }
+
+
+    private Writer writer(Path path) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.US_ASCII),
+                bufferSize);
+    }
+
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Temp file is truncated");
+            }
+        }
+    }
+
+
+    /**
+     * Number, converted to the target scale: either digits in memory, most
+     * significant first, or a range of a file, least significant first.
+     */
+    private static final class Part {
+        final byte[] digits;
+        final Path path;
+        final long offset;
+        final long length;
+        /** The file belongs to this part only and is deleted on release. */
+        final boolean temp;
+
+        Part(byte[] digits) {
+            this.digits = digits;
+            this.path = null;
+            this.offset = 0;
+            this.length = digits.length;
+            this.temp = false;
+        }
+
+        Part(Path path, long offset, long length, boolean temp) {
+            this.digits = null;
+            this.path = path;
+            this.offset = offset;
+            this.length = length;
+            this.temp = temp;
+        }
+
+        /** Returns the <tt>h</tt> least significant digits. */
+        Part low(long h) {
+            return digits != null
+                    ? new Part(Arrays.copyOfRange(digits, digits.length - (int) h, digits.length))
+                    : new Part(path, offset, h, false);
+        }
+
+        /** Returns digits above the <tt>h</tt> least significant ones. */
+        Part high(long h) {
+            return digits != null
+                    ? new Part(Arrays.copyOfRange(digits, 0, digits.length - (int) h))
+                    : new Part(path, offset + h, length - h, false);
+        }
+    }
+
+
+    /**
+     * Reads digits of a part, least significant first, after the given
+     * number of zeros and then zeros again.
+     */
+    private final class DigitReader {
+        private final Part part;
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long position;
+
+        DigitReader(Part part, long shift) throws IOException {
+            this.part = part;
+            this.channel = part.digits == null ? FileChannel.open(part.path) : null;
+            this.buffer = part.digits == null ? ByteBuffer.allocate(bufferSize) : null;
+            this.position = -shift;
+        }
+
+        /**
+         * Reads next <tt>n</tt> digits into the block.
+         */
+        void read(byte[] block, int n) throws IOException {
+            int k = 0;
+            if (position < 0) {
+                k = (int) Math.min(n, -position);
+                Arrays.fill(block, 0, k, (byte) 0);
+                position += k;
+            }
+            int m = (int) Math.max(0, Math.min(n - k, part.length - position));
+            if (part.digits != null) {
+                for (int i = 0, j = part.digits.length - 1 - (int) position; i < m; i++, j--) {
+                    block[k + i] = part.digits[j];
+                }
+            } else if (m > 0) {
+                buffer.clear().limit(m);
+                readFully(channel, buffer, part.offset + position);
+                buffer.flip();
+                buffer.get(block, k, m);
+            }
+            position += m;
+            k += m;
+            Arrays.fill(block, k, n, (byte) 0);
+            position += n - k;
+        }
+
+        void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.Arrays;
+
+/**
+ * Modular exponentiation over numbers, stored as arrays of 32-bit limbs,
+ * least significant first.<p>
+ *
+ * Odd moduli use Montgomery multiplication (CIOS) with sliding window
+ * exponentiation. Even moduli fall back to square and multiply with long
+ * division. All working arrays are allocated once per call, so the
+ * exponentiation loop itself does not allocate.
+ *
+ * @author Alexander Podrubailo
+ *
+ */
+final class Montgomery {
+
+    private static final long MASK = 0xFFFFFFFFL;
+
+    private final int[] mod;
+
+    private final int n;
+
+    /** <tt>-mod^-1 mod 2^32</tt>. */
+    private final int inv;
+
+    /** Scratch of {@link #multiply(int[], int[], int[])}. */
+    private final int[] t;
+
+    private Montgomery(int[] mod) {
+        this.mod = mod;
+        this.n = mod.length;
+        int x = mod[0];
+        for (int i = 0; i < 5; i++) {
+            x *= 2 - mod[0] * x;
+        }
+        this.inv = -x;
+        this.t = new int[n + 2];
+    }
+
+
+    /**
+     * Returns <tt>base^exp mod mod</tt>. Arguments are not modified.
+     *
+     * @throws ArithmeticException if the modulus is zero.
+     */
+    static int[] modPow(int[] base, int[] exp, int[] mod) {
+        mod = trim(mod);
+        if (mod.length == 0) {
+            throw new ArithmeticException("Modulus is zero");
+        }
+        exp = trim(exp);
+        if (mod.length == 1 && mod[0] == 1) {
+            return new int[0];
+        }
+        if (exp.length == 0) {
+            return new int[] {1};
+        }
+        int[] a = new Reducer(mod).reduce(trim(base));
+        if ((mod[0] & 1) == 0) {
+            return trim(squareAndMultiply(a, exp, mod));
+        }
+        return trim(new Montgomery(mod).slidingWindow(a, exp));
+    }
+
+
+    /**
+     * Sliding window exponentiation in Montgomery domain.
+     */
+    private int[] slidingWindow(int[] a, int[] exp) {
+        int bits = bitLength(exp);
+        int w = bits <= 7 ? 1 : bits <= 25 ? 2 : bits <= 81 ? 3 : bits <= 241 ? 4 : bits <= 673 ? 5 : 6;
+
+        int[] r2 = new int[2 * n + 1];
+        r2[2 * n] = 1;
+        r2 = new Reducer(mod).reduce(r2);
+
+        // table[i] = a^(2i+1) in Montgomery domain
+        int[][] table = new int[1 << (w - 1)][n];
+        multiply(pad(a), pad(r2), table[0]);
+        int[] square = new int[n];
+        multiply(table[0], table[0], square);
+        for (int i = 1; i < table.length; i++) {
+            multiply(table[i - 1], square, table[i]);
+        }
+
+        int[] acc = new int[n];
+        int[] tmp = new int[n];
+        int[] one = new int[n];
+        one[0] = 1;
+        multiply(one, pad(r2), acc);
+
+        int i = bits - 1;
+        while (i >= 0) {
+            if (!testBit(exp, i)) {
+                multiply(acc, acc, tmp);
+                int[] s = acc;
+                acc = tmp;
+                tmp = s;
+                i--;
+                continue;
+            }
+            int low = Math.max(i - w + 1, 0);
+            while (!testBit(exp, low)) {
+                low++;
+            }
+            int window = 0;
+            for (int j = i; j >= low; j--) {
+                multiply(acc, acc, tmp);
+                int[] s = acc;
+                acc = tmp;
+                tmp = s;
+                window = (window << 1) | (testBit(exp, j) ? 1 : 0);
+            }
+            multiply(acc, table[window >>> 1], tmp);
+            int[] s = acc;
+            acc = tmp;
+            tmp = s;
+            i = low - 1;
+        }
+        multiply(acc, one, tmp);
+        return tmp;
+    }
+
+
+    /**
+     * Montgomery product: <tt>out = a * b * 2^(-32n) mod mod</tt>.
+     * Operands have <tt>n</tt> limbs and are less than the modulus;
+     * <tt>out</tt> may not be one of them.
+     */
+    private void multiply(int[] a, int[] b, int[] out) {
+        Arrays.fill(t, 0);
+        for (int i = 0; i < n; i++) {
+            long bi = b[i] & MASK;
+            long c = 0;
+            for (int j = 0; j < n; j++) {
+                long cs = (t[j] & MASK) + (a[j] & MASK) * bi + c;
+                t[j] = (int) cs;
+                c = cs >>> 32;
+            }
+            long cs = (t[n] & MASK) + c;
+            t[n] = (int) cs;
+            t[n + 1] = (int) (cs >>> 32);
+
+            long m = (t[0] * inv) & MASK;
+            cs = (t[0] & MASK) + m * (mod[0] & MASK);
+            c = cs >>> 32;
+            for (int j = 1; j < n; j++) {
+                cs = (t[j] & MASK) + m * (mod[j] & MASK) + c;
+                t[j - 1] = (int) cs;
+                c = cs >>> 32;
+            }
+            cs = (t[n] & MASK) + c;
+            t[n - 1] = (int) cs;
+            t[n] = t[n + 1] + (int) (cs >>> 32);
+        }
+        if (t[n] != 0 || compare(t, mod, n) >= 0) {
+            long borrow = 0;
+            for (int j = 0; j < n; j++) {
+                long d = (t[j] & MASK) - (mod[j] & MASK) - borrow;
+                out[j] = (int) d;
+                borrow = (d >>> 63);
+            }
+        } else {
+            System.arraycopy(t, 0, out, 0, n);
+        }
+    }
+
+
+    private int[] pad(int[] a) {
+        int[] result = new int[n];
+        System.arraycopy(a, 0, result, 0, Math.min(a.length, n));
+        return result;
+    }
+
+
+    /**
+     * Left to right square and multiply with long division after each step.
+     */
+    private static int[] squareAndMultiply(int[] a, int[] exp, int[] mod) {
+        Reducer reducer = new Reducer(mod);
+        int n = mod.length;
+        int[] acc = new int[n];
+        acc[0] = 1;
+        int[] product = new int[2 * n];
+        for (int i = bitLength(exp) - 1; i >= 0; i--) {
+            multiplyFull(acc, acc, product);
+            reducer.reduce(product, acc);
+            if (testBit(exp, i)) {
+                multiplyFull(acc, a, product);
+                reducer.reduce(product, acc);
+            }
+        }
+        return acc;
+    }
+
+
+    /**
+     * Schoolbook product of two <tt>n</tt> limb numbers into <tt>2n</tt> limbs.
+     */
+    private static void multiplyFull(int[] a, int[] b, int[] out) {
+        Arrays.fill(out, 0);
+        for (int i = 0; i < a.length; i++) {
+            long ai = a[i] & MASK;
+            long c = 0;
+            for (int j = 0; j < b.length; j++) {
+                long cs = (out[i + j] & MASK) + ai * (b[j] & MASK) + c;
+                out[i + j] = (int) cs;
+                c = cs >>> 32;
+            }
+            out[i + b.length] = (int) c;
+        }
+    }
+
+
+    /**
+     * Remainder by a fixed divisor, Knuth's algorithm D. Keeps the
+     * normalized divisor and scratch, so repeated reductions do not allocate.
+     */
+    private static final class Reducer {
+        private final int[] v;
+        private final int shift;
+        private int[] u = new int[0];
+
+        Reducer(int[] divisor) {
+            shift = Integer.numberOfLeadingZeros(divisor[divisor.length - 1]);
+            v = shiftLeft(divisor, shift, new int[divisor.length]);
+        }
+
+        int[] reduce(int[] x) {
+            int[] out = new int[v.length];
+            reduce(x, out);
+            return out;
+        }
+
+        /**
+         * Writes <tt>x mod divisor</tt> to <tt>out</tt> of divisor length.
+         */
+        void reduce(int[] x, int[] out) {
+            int m = x.length;
+            int n = v.length;
+            Arrays.fill(out, 0);
+            if (m < n) {
+                System.arraycopy(x, 0, out, 0, m);
+                return;
+            }
+            if (u.length < m + 1) {
+                u = new int[m + 1];
+            }
+            Arrays.fill(u, 0);
+            u[m] = shift == 0 ? 0 : x[m - 1] >>> (32 - shift);
+            shiftLeft(x, shift, u);
+            long vTop = v[n - 1] & MASK;
+            long vNext = n > 1 ? v[n - 2] & MASK : 0;
+            for (int j = m - n; j >= 0; j--) {
+                long num = ((u[j + n] & MASK) << 32) | (u[j + n - 1] & MASK);
+                long qhat = Long.divideUnsigned(num, vTop);
+                long rhat = Long.remainderUnsigned(num, vTop);
+                while (qhat > MASK || (n > 1 && Long.compareUnsigned(qhat * vNext,
+                        (rhat << 32) | (u[j + n - 2] & MASK)) > 0)) {
+                    qhat--;
+                    rhat += vTop;
+                    if (rhat > MASK) {
+                        break;
+                    }
+                }
+                long borrow = 0;
+                long carry = 0;
+                for (int i = 0; i < n; i++) {
+                    long p = qhat * (v[i] & MASK) + carry;
+                    carry = p >>> 32;
+                    long d = (u[i + j] & MASK) - (p & MASK) - borrow;
+                    u[i + j] = (int) d;
+                    borrow = d >>> 63;
+                }
+                long d = (u[j + n] & MASK) - carry - borrow;
+                u[j + n] = (int) d;
+                if (d < 0) {
+                    long c = 0;
+                    for (int i = 0; i < n; i++) {
+                        long s = (u[i + j] & MASK) + (v[i] & MASK) + c;
+                        u[i + j] = (int) s;
+                        c = s >>> 32;
+                    }
+                    u[j + n] += (int) c;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                int hi = shift == 0 ? 0 : u[i + 1] << (32 - shift);
+                out[i] = (u[i] >>> shift) | hi;
+            }
+        }
+
+        private static int[] shiftLeft(int[] x, int shift, int[] out) {
+            if (shift == 0) {
+                System.arraycopy(x, 0, out, 0, x.length);
+                return out;
+            }
+            int carry = 0;
+            for (int i = 0; i < x.length; i++) {
+                out[i] = (x[i] << shift) | carry;
+                carry = x[i] >>> (32 - shift);
+            }
+            return out;
+        }
+    }
+
+
+    /**
+     * Compares first <tt>n</tt> limbs of two numbers.
+     */
+    private static int compare(int[] a, int[] b, int n) {
+        for (int i = n - 1; i >= 0; i--) {
+            if (a[i] != b[i]) {
+                return Integer.compareUnsigned(a[i], b[i]);
+            }
+        }
+        return 0;
+    }
+
+
+    static int bitLength(int[] a) {
+        int top = a.length - 1;
+        return top < 0 ? 0 : 32 * top + 32 - Integer.numberOfLeadingZeros(a[top]);
+    }
+
+
+    private static boolean testBit(int[] a, int bit) {
+        return (a[bit >>> 5] & (1 << (bit & 31))) != 0;
+    }
+
+
+    /**
+     * Drops zero limbs at the most significant end.
+     */
+    static int[] trim(int[] a) {
+        int length = a.length;
+        while (length > 0 && a[length - 1] == 0) {
+            length--;
+        }
+        return length == a.length ? a : Arrays.copyOf(a, length);
+    }
+}
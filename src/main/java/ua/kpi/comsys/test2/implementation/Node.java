@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+/**
+ * Node of <tt>NumberListImpl</tt>, holding single digit.
+ *
+ * @author Alexander Podrubailo
+ *
+ */
+final class Node {
+    byte value;
+    Node prev;
+    Node next;
+
+    Node(Node prev, byte value, Node next) {
+        this.prev = prev;
+        this.value = value;
+        this.next = next;
+    }
+}
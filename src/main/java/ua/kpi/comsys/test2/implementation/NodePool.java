@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-thread pool of free list nodes.<p>
+ *
+ * Nodes, unlinked from a list, are kept in the pool of the current thread
+ * and reused by lists, built on that thread. Pooling is off unless
+ * capacity (maximum number of free nodes per thread) is set by the
+ * <tt>ua.kpi.comsys.test2.nodePool.capacity</tt> system property or through
+ * {@link NumberListMetricsMXBean#setNodePoolCapacity(int)}. When capacity
+ * is lowered, each thread trims its free list the next time it asks for
+ * its pool. Each pool counts its statistics in plain fields and adds them
+ * to shared striped counters in bulk: after every bulk operation and every
+ * {@value #FLUSH_EVERY} single ones. So a take or a put costs no shared
+ * write, and nothing is kept per thread after the thread dies.
+ *
+ * @author Alexander Podrubailo
+ *
+ */
+final class NodePool {
+
+    private static final NodePool NONE = new NodePool(false);
+
+    private static final ThreadLocal<NodePool> LOCAL = ThreadLocal.withInitial(() -> new NodePool(true));
+
+    private static final LongAdder ALLOCATED = new LongAdder();
+
+    private static final LongAdder REUSED = new LongAdder();
+
+    private static final LongAdder RECYCLED = new LongAdder();
+
+    private static final LongAdder DROPPED = new LongAdder();
+
+    /** Single operations, after which counts of a pool are flushed. */
+    private static final int FLUSH_EVERY = 1024;
+
+    private static volatile int capacity = Integer.getInteger("ua.kpi.comsys.test2.nodePool.capacity", 0);
+
+    /** Number of times capacity was lowered. */
+    private static volatile int lowered;
+
+    private final boolean pooling;
+
+    private Node free;
+
+    private int size;
+
+    /** Value of {@link #lowered} when the free list was last trimmed. */
+    private int trimmed;
+
+    private long allocated;
+
+    private long reused;
+
+    private long recycled;
+
+    private long dropped;
+
+    /** Operations, counted since the last flush. */
+    private int pending;
+
+    private NodePool(boolean pooling) {
+        this.pooling = pooling;
+    }
+
+
+    /**
+     * Returns pool of the current thread, or a pool which always allocates
+     * new nodes and drops released ones if pooling is off. Trims the free
+     * list of the current thread if capacity was lowered since.
+     */
+    static NodePool local() {
+        int c = capacity;
+        int l = lowered;
+        if (c == 0 && l == 0) {
+            return NONE;
+        }
+        NodePool pool = LOCAL.get();
+        if (pool.trimmed != l) {
+            pool.trim(c);
+            pool.trimmed = l;
+        }
+        return c == 0 ? NONE : pool;
+    }
+
+
+    static int getCapacity() {
+        return capacity;
+    }
+
+
+    static synchronized void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        }
+        int old = NodePool.capacity;
+        NodePool.capacity = capacity;
+        if (capacity < old) {
+            lowered++;
+        }
+    }
+
+
+    /**
+     * Returns statistics, summed over all threads.
+     */
+    static Map<String, Long> statistics() {
+        Map<String, Long> result = new TreeMap<>();
+        result.put("capacity", (long) capacity);
+        result.put("allocated", ALLOCATED.sum());
+        result.put("reused", REUSED.sum());
+        result.put("recycled", RECYCLED.sum());
+        result.put("dropped", DROPPED.sum());
+        return result;
+    }
+
+
+    static void resetStatistics() {
+        ALLOCATED.reset();
+        REUSED.reset();
+        RECYCLED.reset();
+        DROPPED.reset();
+    }
+
+
+    Node take(Node prev, byte value, Node next) {
+        Node x = free;
+        if (x == null) {
+            if (pooling) {
+                allocated++;
+                counted();
+            }
+            return new Node(prev, value, next);
+        }
+        free = x.next;
+        size--;
+        reused++;
+        counted();
+        x.prev = prev;
+        x.value = value;
+        x.next = next;
+        return x;
+    }
+
+
+    /**
+     * Returns unlinked node to the pool.
+     */
+    void put(Node x) {
+        x.prev = null;
+        if (!pooling) {
+            x.next = null;
+        } else if (size < capacity) {
+            x.next = free;
+            free = x;
+            size++;
+            recycled++;
+            counted();
+        } else {
+            x.next = null;
+            dropped++;
+            counted();
+        }
+    }
+
+
+    /**
+     * Returns chain of nodes, linked by <tt>next</tt>, to the pool.
+     */
+    void putAll(Node first) {
+        for (Node x = first; x != null; ) {
+            Node next = x.next;
+            put(x);
+            x = next;
+        }
+        flush();
+    }
+
+
+    /**
+     * Drops free nodes above the capacity; they count as dropped.
+     */
+    private void trim(int capacity) {
+        while (size > capacity) {
+            Node x = free;
+            free = x.next;
+            x.next = null;
+            size--;
+            dropped++;
+            counted();
+        }
+        flush();
+    }
+
+
+    private void counted() {
+        if (++pending == FLUSH_EVERY) {
+            flush();
+        }
+    }
+
+
+    /**
+     * Adds counts of the pool to the shared statistics. Called at the end of
+     * bulk operations, so the statistics are up to date after them.
+     */
+    void flush() {
+        if (pending == 0) {
+            return;
+        }
+        ALLOCATED.add(allocated);
+        REUSED.add(reused);
+        RECYCLED.add(recycled);
+        DROPPED.add(dropped);
+        allocated = reused = recycled = dropped = 0;
+        pending = 0;
+    }
+}
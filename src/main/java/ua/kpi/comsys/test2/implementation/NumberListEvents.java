@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder events, emitted by <tt>NumberListImpl</tt>.<p>
+ *
+ * Events are <tt>@Enabled(false)</tt>, so the stock <tt>default</tt> and
+ * <tt>profile</tt> settings do not record them. A recording has to enable
+ * them by name, e.g. <tt>-XX:StartFlightRecording</tt> with a settings file
+ * that turns on <tt>ua.kpi.comsys.test2.*</tt>. Fields are filled in only
+ * after <tt>shouldCommit()</tt>, so a disabled event costs next to nothing.
+ *
+ * @author Alexander Podrubailo
+ *
+ */
+final class NumberListEvents {
+
+    private static final String CATEGORY = "Number List";
+
+    private NumberListEvents() {
+    }
+
+
+    @Name("ua.kpi.comsys.test2.ChangeScale")
+    @Label("Change Scale")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @Description("Conversion of a number list to other scale of notation")
+    static final class ChangeScale extends Event {
+        @Label("Source Radix")
+        int sourceRadix;
+
+        @Label("Target Radix")
+        int targetRadix;
+
+        @Label("Digits")
+        int digits;
+
+        @Label("Result Digits")
+        int resultDigits;
+    }
+
+
+    @Name("ua.kpi.comsys.test2.AdditionalOperation")
+    @Label("Additional Operation")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @Description("Arithmetic or bitwise operation over two number lists")
+    static final class AdditionalOperation extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Radix")
+        int radix;
+
+        @Label("Left Digits")
+        int leftDigits;
+
+        @Label("Right Digits")
+        int rightDigits;
+
+        @Label("Result Digits")
+        int resultDigits;
+    }
+
+
+    @Name("ua.kpi.comsys.test2.FileIO")
+    @Label("File I/O")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @Description("Load or save of a number list")
+    static final class FileIO extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Save")
+        boolean save;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Digits")
+        int digits;
+    }
+
+
+    @Name("ua.kpi.comsys.test2.Sort")
+    @Label("Sort")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @Description("Sort of number list digits")
+    static final class Sort extends Event {
+        @Label("Descending")
+        boolean descending;
+
+        @Label("Radix")
+        int radix;
+
+        @Label("Digits")
+        int digits;
+    }
+}
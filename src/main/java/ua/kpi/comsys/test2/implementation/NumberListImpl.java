@@ -7,28 +7,102 @@
 
 package ua.kpi.comsys.test2.implementation;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 import ua.kpi.comsys.test2.NumberList;
 
 /**
  * Custom implementation of INumberList interface.
- * Has to be implemented by each student independently.
+ * Has to be implemented by each student independently.<p>
+ *
+ * The number is stored in a linear doubly linked list, one digit per node,
+ * most significant digit first. Structural modifications are counted, so
+ * iterators and {@link #subList(int, int) sub lists} are fail-fast.
  *
  * @author Alexander Podrubailo
  *
  */
-public class NumberListImpl implements NumberList {
+public class NumberListImpl implements NumberList, Comparable<NumberListImpl> {
+
+    private static final int[] SCALES = {2, 3, 8, 10, 16};
+
+    private static final int DECIMAL = 10;
+
+    /** Scale of notation of the list, defined by C5. */
+    private static final int RADIX = SCALES[getRecordBookNumber() % 5];
+
+    /** Additional scale of notation, used by {@link #changeScale()}. */
+    private static final int ADDITIONAL_RADIX = SCALES[(getRecordBookNumber() % 5 + 1) % 5];
+
+    /** Additional operation, defined by C7. */
+    private static final Operation OPERATION = Operation.values()[getRecordBookNumber() % 7];
+
+    /** Value of {@link #compact}, that marks a list that is not in compact mode. */
+    private static final long NONE = -1;
+
+    private final int radix;
+
+    private Node head;
+
+    private Node tail;
+
+    private int size;
+
+    /**
+     * Number of occurrences of each digit, kept up to date by every
+     * mutator, so digit lookups and sorts need not scan the list.
+     * Allocated when the first node is linked, so compact lists,
+     * which answer such reads from the value, do without it.
+     */
+    private int[] counts;
+
+    /**
+     * Value of the number while the list is in compact mode, or
+     * {@link #NONE} once its digits are linked into nodes.<p>
+     *
+     * Normalized numbers, which fit in a <tt>long</tt>, are stored
+     * as a value until something needs the nodes; {@link #inflate()}
+     * links them then, and the list never goes back to compact mode.
+     * Reads are answered from the value or a snapshot of its digits and
+     * never inflate, so concurrent readers do not modify the list; changes
+     * and views, anchored on nodes, do. <tt>size</tt> is kept in both modes.
+     */
+    private long compact = NONE;
+
+    /**
+     * Number of structural modifications (links and unlinks of nodes).
+     * Checked by iterators and sub lists to fail fast.
+     */
+    private int modCount;
+
 
     /**
      * Default constructor. Returns empty <tt>NumberListImpl</tt>
      */
     public NumberListImpl() {
-        // TODO Auto-generated method stub
+        this(RADIX);
     }
 
 
@@ -39,7 +113,28 @@ public class NumberListImpl implements NumberList {
      * @param file - file where number is stored.
      */
     public NumberListImpl(File file) {
-        // TODO Auto-generated method stub
+        this(RADIX);
+        NumberListEvents.FileIO event = new NumberListEvents.FileIO();
+        event.begin();
+        long start = NumberListMetrics.start();
+        String value;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            value = reader.readLine();
+        } catch (IOException e) {
+            return;
+        }
+        if (value != null) {
+            appendDecimal(value.trim());
+        }
+        long bytes = value == null ? 0 : value.length();
+        NumberListMetrics.record(NumberListMetrics.LOAD, start);
+        NumberListMetrics.recordRead(start, bytes);
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.bytes = bytes;
+            event.digits = size;
+            event.commit();
+        }
     }
 
 
@@ -50,7 +145,35 @@ public class NumberListImpl implements NumberList {
      * @param value - number in string notation.
      */
     public NumberListImpl(String value) {
-        // TODO Auto-generated method stub
+        this(RADIX);
+        if (value != null) {
+            appendDecimal(value);
+        }
+    }
+
+
+    private NumberListImpl(int radix) {
+        this.radix = radix;
+    }
+
+
+    /**
+     * Constructs list of digits in the given scale of notation,
+     * most significant first. Digits are not checked.
+     */
+    NumberListImpl(int radix, byte[] digits) {
+        this(radix);
+        init(digits);
+    }
+
+
+    /**
+     * Constructs compact list of the non-negative value.
+     */
+    private NumberListImpl(int radix, long value) {
+        this(radix);
+        compact = value;
+        size = Digits.length(value, radix);
     }
 
 
@@ -61,7 +184,88 @@ public class NumberListImpl implements NumberList {
      * @param file - file where number has to be stored.
      */
     public void saveList(File file) {
-        // TODO Auto-generated method stub
+        NumberListEvents.FileIO event = new NumberListEvents.FileIO();
+        event.begin();
+        long start = NumberListMetrics.start();
+        String value = toDecimalString();
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        NumberListMetrics.record(NumberListMetrics.SAVE, start);
+        NumberListMetrics.recordWritten(start, value.length());
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.save = true;
+            event.bytes = value.length();
+            event.digits = size;
+            event.commit();
+        }
+    }
+
+
+    /**
+     * Asynchronously constructs new <tt>NumberListImpl</tt> by <b>decimal</b>
+     * number from file, defined in string format, the same way as
+     * {@link #NumberListImpl(File)}. The number is parsed chunk by chunk as
+     * reads complete. Cancelling the future aborts the load.
+     *
+     * @param path - file where number is stored.
+     * @return future of the list; completes exceptionally if the file cannot be read.
+     */
+    public static CompletableFuture<NumberListImpl> loadAsync(Path path) {
+        return AsyncFileIO.read(path, decimal -> decimal == null
+                ? new NumberListImpl()
+                : new NumberListImpl(RADIX, Digits.convert(decimal, DECIMAL, RADIX)),
+                NumberListImpl::size, NumberListMetrics.start());
+    }
+
+
+    /**
+     * Asynchronously saves the number, stored in the list, into specified
+     * file in <b>decimal</b> scale of notation. The list is copied before
+     * the call returns, so later changes do not affect the saved number.
+     * Digits are formatted chunk by chunk as writes complete. Cancelling
+     * the future aborts the save.
+     *
+     * @param path - file where number has to be stored.
+     * @return future, which completes when the number is written.
+     */
+    public CompletableFuture<Void> saveAsync(Path path) {
+        return AsyncFileIO.write(path, digits(), radix, NumberListMetrics.start());
+    }
+
+
+    /**
+     * Converts <b>decimal</b> number from the <tt>in</tt> file to the scale
+     * of notation of the list and writes it to the <tt>out</tt> file, keeping
+     * in memory only about <tt>memoryLimit</tt> bytes of the number.
+     *
+     * @param in - file where decimal number is stored.
+     * @param out - file where converted number has to be stored.
+     * @param memoryLimit - memory ceiling for the conversion, in bytes.
+     * @throws IOException if the files cannot be read or written.
+     * @throws NumberFormatException if the input is not a decimal number.
+     */
+    public static void convertFile(File in, File out, long memoryLimit) throws IOException {
+        FileScaleConverter.convert(in.toPath(), DECIMAL, out.toPath(), RADIX, memoryLimit);
+    }
+
+
+    /**
+     * Converts number in the scale of notation of the list from the
+     * <tt>in</tt> file to <b>decimal</b> and writes it to the <tt>out</tt>
+     * file, keeping in memory only about <tt>memoryLimit</tt> bytes of the number.
+     *
+     * @param in - file where number in the scale of the list is stored.
+     * @param out - file where decimal number has to be stored.
+     * @param memoryLimit - memory ceiling for the conversion, in bytes.
+     * @throws IOException if the files cannot be read or written.
+     * @throws NumberFormatException if the input is not a number in the scale of the list.
+     */
+    public static void convertFileToDecimal(File in, File out, long memoryLimit) throws IOException {
+        FileScaleConverter.convert(in.toPath(), RADIX, out.toPath(), DECIMAL, memoryLimit);
     }
 
 
@@ -85,8 +289,70 @@ public class NumberListImpl implements NumberList {
      * @return <tt>NumberListImpl</tt> in other scale of notation.
      */
     public NumberListImpl changeScale() {
-        // TODO Auto-generated method stub
-        return null;
+        return changeScale(radix == ADDITIONAL_RADIX ? RADIX : ADDITIONAL_RADIX);
+    }
+
+
+    /**
+     * Returns new <tt>NumberListImpl</tt> which represents the same number
+     * in the given scale of notation. Does not impact the original list.
+     */
+    NumberListImpl changeScale(int target) {
+        NumberListEvents.ChangeScale event = new NumberListEvents.ChangeScale();
+        event.begin();
+        long start = NumberListMetrics.start();
+        NumberListImpl result;
+        if (isEmpty()) {
+            result = new NumberListImpl(target);
+        } else if (compact != NONE) {
+            result = new NumberListImpl(target, compact);
+        } else if (Digits.isPowerOfTwo(radix) && Digits.isPowerOfTwo(target)) {
+            result = regroup(target);
+        } else {
+            result = new NumberListImpl(target, Digits.convert(digits(), radix, target));
+        }
+        NumberListMetrics.record(NumberListMetrics.CHANGE_SCALE, start);
+        if (event.shouldCommit()) {
+            event.sourceRadix = radix;
+            event.targetRadix = target;
+            event.digits = size;
+            event.resultDigits = result.size;
+            event.commit();
+        }
+        return result;
+    }
+
+
+    /**
+     * Converts the number between two power of two scales, streaming bits
+     * of the digits from the tail through an accumulator straight into
+     * nodes of the result.
+     */
+    private NumberListImpl regroup(int target) {
+        NumberListImpl result = new NumberListImpl(target);
+        NodePool pool = NodePool.local();
+        int fromBits = Integer.numberOfTrailingZeros(radix);
+        int toBits = Integer.numberOfTrailingZeros(target);
+        int mask = target - 1;
+        int acc = 0;
+        int bits = 0;
+        for (Node x = tail; x != null; x = x.prev) {
+            acc |= x.value << bits;
+            bits += fromBits;
+            while (bits >= toBits) {
+                result.linkBefore(pool, (byte) (acc & mask), result.head);
+                acc >>>= toBits;
+                bits -= toBits;
+            }
+        }
+        if (bits > 0) {
+            result.linkBefore(pool, (byte) acc, result.head);
+        }
+        while (result.size > 1 && result.head.value == 0) {
+            result.unlink(pool, result.head);
+        }
+        pool.flush();
+        return result;
     }
 
 
@@ -101,8 +367,68 @@ public class NumberListImpl implements NumberList {
      * @return result of additional operation.
      */
     public NumberListImpl additionalOperation(NumberList arg) {
-        // TODO Auto-generated method stub
-        return null;
+        NumberListEvents.AdditionalOperation event = new NumberListEvents.AdditionalOperation();
+        event.begin();
+        long start = NumberListMetrics.start();
+        long y = arg instanceof NumberListImpl ? ((NumberListImpl) arg).compact : NONE;
+        long value = compact != NONE && y != NONE ? OPERATION.apply(compact, y) : NONE;
+        byte[] b = null;
+        NumberListImpl result;
+        if (value != NONE) {
+            result = new NumberListImpl(radix, value);
+        } else {
+            b = digitsOf(arg, radix);
+            result = new NumberListImpl(radix, OPERATION.apply(digits(), b, radix));
+        }
+        NumberListMetrics.record(OPERATION.name(), start);
+        if (event.shouldCommit()) {
+            event.operation = OPERATION.name();
+            event.radix = radix;
+            event.leftDigits = size;
+            event.rightDigits = b == null ? Digits.length(y, radix) : b.length;
+            event.resultDigits = result.size;
+            event.commit();
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns new <tt>NumberListImpl</tt> which represents
+     * <tt>(this ^ exponent) mod modulus</tt>.<p>
+     *
+     * Does not impact the original list and the arguments.
+     *
+     * @param exponent - exponent
+     * @param modulus - modulus
+     *
+     * @return result of modular exponentiation.
+     * @throws ArithmeticException if the modulus is zero.
+     */
+    public NumberListImpl modPow(NumberList exponent, NumberList modulus) {
+        long start = NumberListMetrics.start();
+        int[] result = Montgomery.modPow(toLimbs(digits(), radix),
+                toLimbs(digitsOf(exponent, radix), radix), toLimbs(digitsOf(modulus, radix), radix));
+        byte[] hex = new byte[result.length * 8];
+        for (int i = 0; i < hex.length; i++) {
+            hex[hex.length - 1 - i] = (byte) ((result[i >>> 3] >>> ((i & 7) * 4)) & 0xF);
+        }
+        NumberListImpl list = new NumberListImpl(radix, Digits.convert(hex, 16, radix));
+        NumberListMetrics.record(NumberListMetrics.MOD_POW, start);
+        return list;
+    }
+
+
+    /**
+     * Packs number into 32-bit limbs, least significant first.
+     */
+    private static int[] toLimbs(byte[] digits, int radix) {
+        byte[] hex = digits.length == 0 ? digits : Digits.convert(digits, radix, 16);
+        int[] limbs = new int[(hex.length + 7) / 8];
+        for (int i = 0; i < hex.length; i++) {
+            limbs[i >>> 3] |= hex[hex.length - 1 - i] << ((i & 7) * 4);
+        }
+        return limbs;
     }
 
 
@@ -113,57 +439,164 @@ public class NumberListImpl implements NumberList {
      * @return string representation in <b>decimal</b> scale.
      */
     public String toDecimalString() {
-        // TODO Auto-generated method stub
-        return null;
+        if (isEmpty()) {
+            return "";
+        }
+        if (compact != NONE) {
+            return Long.toString(compact);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte digit : Digits.convert(digits(), radix, DECIMAL)) {
+            sb.append(Digits.toChar(digit));
+        }
+        return sb.toString();
     }
 
 
     @Override
     public String toString() {
-        // TODO Auto-generated method stub
-        return null;
+        if (compact != NONE) {
+            return Long.toString(compact, radix).toUpperCase();
+        }
+        StringBuilder sb = new StringBuilder(size);
+        for (Node x = head; x != null; x = x.next) {
+            sb.append(Digits.toChar(x.value));
+        }
+        return sb.toString();
     }
 
 
     @Override
     public boolean equals(Object o) {
-        // TODO Auto-generated method stub
-        return false;
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof List)) {
+            return false;
+        }
+        List<?> other = (List<?>) o;
+        if (other.size() != size) {
+            return false;
+        }
+        if (o instanceof NumberListImpl) {
+            NumberListImpl list = (NumberListImpl) o;
+            if (compact == NONE && list.compact == NONE) {
+                return DigitBlocks.compare(head, list.head, size) == 0;
+            }
+            if (compact != NONE && list.compact != NONE && list.radix == radix) {
+                return compact == list.compact;
+            }
+            return Arrays.equals(digits(), list.digits());
+        }
+        Iterator<?> it = other.iterator();
+        if (compact != NONE) {
+            for (byte digit : digits()) {
+                Object e = it.next();
+                if (!(e instanceof Byte) || (Byte) e != digit) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (Node x = head; x != null; x = x.next) {
+            Object e = it.next();
+            if (!(e instanceof Byte) || (Byte) e != x.value) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        if (compact != NONE) {
+            for (byte digit : digits()) {
+                hash = 31 * hash + Byte.hashCode(digit);
+            }
+            return hash;
+        }
+        for (Node x = head; x != null; x = x.next) {
+            hash = 31 * hash + Byte.hashCode(x.value);
+        }
+        return hash;
+    }
+
+
+    /**
+     * Compares numbers, stored in the lists, by value, whatever their
+     * scales of notation are. Leading zeros are ignored and empty list
+     * is zero, so the ordering is inconsistent with {@link #equals(Object)}.
+     *
+     * @param other - list to compare with.
+     * @return negative, zero or positive as this number is less than,
+     *         equal to or greater than the other.
+     */
+    @Override
+    public int compareTo(NumberListImpl other) {
+        if (compact != NONE && other.compact != NONE) {
+            return Long.compare(compact, other.compact);
+        }
+        if (other.radix != radix || isEmpty() || other.isEmpty() || compact != NONE || other.compact != NONE) {
+            return Digits.compare(Digits.normalize(digits()), Digits.normalize(digitsOf(other, radix)));
+        }
+        Node x = head;
+        int length = size;
+        for (; x != tail && x.value == 0; x = x.next) {
+            length--;
+        }
+        Node y = other.head;
+        int otherLength = other.size;
+        for (; y != other.tail && y.value == 0; y = y.next) {
+            otherLength--;
+        }
+        if (length != otherLength) {
+            return length < otherLength ? -1 : 1;
+        }
+        return Integer.signum(DigitBlocks.compare(x, y, length));
     }
 
 
     @Override
     public int size() {
-        // TODO Auto-generated method stub
-        return 0;
+        return size;
     }
 
 
     @Override
     public boolean isEmpty() {
-        // TODO Auto-generated method stub
-        return false;
+        return size == 0;
     }
 
 
     @Override
     public boolean contains(Object o) {
-        // TODO Auto-generated method stub
-        return false;
+        return count(o) != 0;
     }
 
 
     @Override
     public Iterator<Byte> iterator() {
-        // TODO Auto-generated method stub
-        return null;
+        return listIterator(0);
     }
 
 
     @Override
     public Object[] toArray() {
-        // TODO Auto-generated method stub
-        return null;
+        Object[] result = new Object[size];
+        if (compact != NONE) {
+            byte[] digits = digits();
+            for (int i = 0; i < digits.length; i++) {
+                result[i] = digits[i];
+            }
+            return result;
+        }
+        int i = 0;
+        for (Node x = head; x != null; x = x.next) {
+            result[i++] = x.value;
+        }
+        return result;
     }
 
 
@@ -176,152 +609,1179 @@ public class NumberListImpl implements NumberList {
 
     @Override
     public boolean add(Byte e) {
-        // TODO Auto-generated method stub
-        return false;
+        inflate();
+        linkLast(checkDigit(e));
+        return true;
     }
 
 
     @Override
     public boolean remove(Object o) {
-        // TODO Auto-generated method stub
+        if (count(o) != 0) {
+            inflate();
+            byte digit = (Byte) o;
+            for (Node x = head; x != null; x = x.next) {
+                if (x.value == digit) {
+                    unlink(x);
+                    return true;
+                }
+            }
+        }
         return false;
     }
 
 
     @Override
     public boolean containsAll(Collection<?> c) {
-        // TODO Auto-generated method stub
-        return false;
+        for (Object e : c) {
+            if (!contains(e)) {
+                return false;
+            }
+        }
+        return true;
     }
 
 
     @Override
     public boolean addAll(Collection<? extends Byte> c) {
-        // TODO Auto-generated method stub
-        return false;
+        return addAll(size, c);
     }
 
 
     @Override
     public boolean addAll(int index, Collection<? extends Byte> c) {
-        // TODO Auto-generated method stub
-        return false;
+        checkPositionIndex(index);
+        inflate();
+        Object[] elements = c.toArray();
+        for (Object e : elements) {
+            checkDigit((Byte) e);
+        }
+        NodePool pool = NodePool.local();
+        Node succ = index == size ? null : node(index);
+        for (Object e : elements) {
+            linkBefore(pool, (Byte) e, succ);
+        }
+        pool.flush();
+        return elements.length != 0;
     }
 
 
     @Override
     public boolean removeAll(Collection<?> c) {
-        // TODO Auto-generated method stub
-        return false;
+        return batchRemove(c, true);
     }
 
 
     @Override
     public boolean retainAll(Collection<?> c) {
-        // TODO Auto-generated method stub
-        return false;
+        return batchRemove(c, false);
+    }
+
+
+    /**
+     * Asks the collection about each digit once, and scans the list only
+     * until the last digit to remove.
+     */
+    private boolean batchRemove(Collection<?> c, boolean present) {
+        inflate();
+        if (counts == null) {
+            return false;
+        }
+        boolean[] removed = new boolean[radix];
+        int toRemove = 0;
+        for (int digit = 0; digit < radix; digit++) {
+            if (counts[digit] != 0 && c.contains((byte) digit) == present) {
+                removed[digit] = true;
+                toRemove += counts[digit];
+            }
+        }
+        if (toRemove == 0) {
+            return false;
+        }
+        NodePool pool = NodePool.local();
+        for (Node x = head; toRemove > 0; ) {
+            Node next = x.next;
+            if (removed[x.value]) {
+                unlink(pool, x);
+                toRemove--;
+            }
+            x = next;
+        }
+        pool.flush();
+        return true;
     }
 
 
     @Override
     public void clear() {
-        // TODO Auto-generated method stub
-
+        NodePool.local().putAll(head);
+        head = tail = null;
+        size = 0;
+        compact = NONE;
+        if (counts != null) {
+            Arrays.fill(counts, 0);
+        }
+        modCount++;
     }
 
 
     @Override
     public Byte get(int index) {
-        // TODO Auto-generated method stub
-        return null;
+        checkElementIndex(index);
+        long value = compact;
+        if (value != NONE) {
+            long power = 1;
+            for (int i = index + 1; i < size; i++) {
+                power *= radix;
+            }
+            return (byte) (value / power % radix);
+        }
+        return node(index).value;
     }
 
 
     @Override
     public Byte set(int index, Byte element) {
-        // TODO Auto-generated method stub
-        return null;
+        checkElementIndex(index);
+        byte digit = checkDigit(element);
+        inflate();
+        return replace(node(index), digit);
     }
 
 
     @Override
     public void add(int index, Byte element) {
-        // TODO Auto-generated method stub
-
+        checkPositionIndex(index);
+        byte digit = checkDigit(element);
+        inflate();
+        linkBefore(digit, index == size ? null : node(index));
     }
 
 
     @Override
     public Byte remove(int index) {
-        // TODO Auto-generated method stub
-        return null;
+        checkElementIndex(index);
+        inflate();
+        return unlink(node(index));
     }
 
 
     @Override
     public int indexOf(Object o) {
-        // TODO Auto-generated method stub
-        return 0;
+        if (count(o) != 0) {
+            byte digit = (Byte) o;
+            if (compact != NONE) {
+                byte[] digits = digits();
+                for (int i = 0; i < digits.length; i++) {
+                    if (digits[i] == digit) {
+                        return i;
+                    }
+                }
+            }
+            int index = 0;
+            for (Node x = head; x != null; x = x.next, index++) {
+                if (x.value == digit) {
+                    return index;
+                }
+            }
+        }
+        return -1;
     }
 
 
     @Override
     public int lastIndexOf(Object o) {
-        // TODO Auto-generated method stub
-        return 0;
+        if (count(o) != 0) {
+            byte digit = (Byte) o;
+            if (compact != NONE) {
+                byte[] digits = digits();
+                for (int i = digits.length - 1; i >= 0; i--) {
+                    if (digits[i] == digit) {
+                        return i;
+                    }
+                }
+            }
+            int index = size - 1;
+            for (Node x = tail; x != null; x = x.prev, index--) {
+                if (x.value == digit) {
+                    return index;
+                }
+            }
+        }
+        return -1;
     }
 
 
     @Override
     public ListIterator<Byte> listIterator() {
-        // TODO Auto-generated method stub
-        return null;
+        return listIterator(0);
     }
 
 
     @Override
     public ListIterator<Byte> listIterator(int index) {
-        // TODO Auto-generated method stub
-        return null;
+        checkPositionIndex(index);
+        if (compact != NONE) {
+            return new CompactItr(digits(), index);
+        }
+        return new Itr(null, index == size ? null : node(index), index);
     }
 
 
+    /**
+     * Returns spliterator over the digits, which splits in balanced halves.
+     * See {@link #digitSpliterator()}.
+     */
+    @Override
+    public Spliterator<Byte> spliterator() {
+        if (compact != NONE) {
+            return Spliterators.spliterator(toArray(), Spliterator.ORDERED | Spliterator.NONNULL);
+        }
+        return new ByteSpliterator(new Anchors(), head, 0, size);
+    }
+
+
+    /**
+     * Returns primitive spliterator over the digits.<p>
+     *
+     * The first split walks the list once to record every few nodes as
+     * anchors; after that every split is a constant time jump to the anchor
+     * nearest to the middle, so parallel streams get balanced halves.
+     * The spliterator is fail-fast.
+     *
+     * @return spliterator of digits.
+     */
+    public Spliterator.OfInt digitSpliterator() {
+        if (compact != NONE) {
+            byte[] digits = digits();
+            int[] values = new int[digits.length];
+            for (int i = 0; i < digits.length; i++) {
+                values[i] = digits[i];
+            }
+            return Spliterators.spliterator(values, Spliterator.ORDERED | Spliterator.NONNULL);
+        }
+        return new IntSpliterator(new Anchors(), head, 0, size);
+    }
+
+
+    /**
+     * Returns sequential stream of digits, which can be made parallel.
+     *
+     * @return stream of digits.
+     */
+    public IntStream digitStream() {
+        return StreamSupport.intStream(digitSpliterator(), false);
+    }
+
+
+    /**
+     * Returns a view of the portion of this list between the specified
+     * <tt>fromIndex</tt>, inclusive, and <tt>toIndex</tt>, exclusive.<p>
+     *
+     * The view is anchored on the nodes surrounding the range, so creating
+     * it costs only the lookup of those nodes. Changes made through the view
+     * are reflected in this list. Structural changes of this list made
+     * not through the view make the view throw
+     * {@link ConcurrentModificationException}.
+     */
     @Override
     public List<Byte> subList(int fromIndex, int toIndex) {
-        // TODO Auto-generated method stub
-        return null;
+        checkRange(fromIndex, toIndex, size);
+        inflate();
+        Node before = fromIndex == 0 ? null : node(fromIndex - 1);
+        Node after = toIndex == size ? null : node(toIndex);
+        return new SubList(null, before, after, toIndex - fromIndex);
     }
 
 
     @Override
     public boolean swap(int index1, int index2) {
-        // TODO Auto-generated method stub
-        return false;
+        if (index1 < 0 || index1 >= size || index2 < 0 || index2 >= size) {
+            return false;
+        }
+        inflate();
+        Node x = node(index1);
+        Node y = node(index2);
+        byte value = x.value;
+        x.value = y.value;
+        y.value = value;
+        return true;
     }
 
 
     @Override
     public void sortAscending() {
-        // TODO Auto-generated method stub
+        sort(false);
     }
 
 
     @Override
     public void sortDescending() {
-        // TODO Auto-generated method stub
+        sort(true);
     }
 
 
     @Override
     public void shiftLeft() {
-        // TODO Auto-generated method stub
-
+        inflate();
+        if (size > 1) {
+            Node first = head;
+            head = first.next;
+            head.prev = null;
+            first.next = null;
+            first.prev = tail;
+            tail.next = first;
+            tail = first;
+            modCount++;
+        }
     }
 
 
     @Override
     public void shiftRight() {
-        // TODO Auto-generated method stub
+        inflate();
+        if (size > 1) {
+            Node last = tail;
+            tail = last.prev;
+            tail.next = null;
+            last.prev = null;
+            last.next = head;
+            head.prev = last;
+            head = last;
+            modCount++;
+        }
+    }
+
+
+    /**
+     * Counting sort by the digit counts: rewrites digits in place,
+     * leaving nodes where they are.
+     */
+    private void sort(boolean descending) {
+        NumberListEvents.Sort event = new NumberListEvents.Sort();
+        event.begin();
+        long start = NumberListMetrics.start();
+        inflate();
+        Node x = head;
+        for (int i = 0; counts != null && i < radix; i++) {
+            int digit = descending ? radix - 1 - i : i;
+            for (int j = 0; j < counts[digit]; j++, x = x.next) {
+                x.value = (byte) digit;
+            }
+        }
+        NumberListMetrics.record(descending ? NumberListMetrics.SORT_DESCENDING : NumberListMetrics.SORT_ASCENDING, start);
+        if (event.shouldCommit()) {
+            event.descending = descending;
+            event.radix = radix;
+            event.digits = size;
+            event.commit();
+        }
+    }
+
+
+    /**
+     * Returns number of occurrences of the digit in the list.
+     * Takes constant time.
+     *
+     * @param digit - digit to count.
+     * @return number of occurrences, zero if the digit is not valid in the scale of the list.
+     */
+    public int digitCount(int digit) {
+        if (digit < 0 || digit >= radix) {
+            return 0;
+        }
+        if (compact == NONE) {
+            return counts == null ? 0 : counts[digit];
+        }
+        int count = 0;
+        long value = compact;
+        do {
+            if (value % radix == digit) {
+                count++;
+            }
+            value /= radix;
+        } while (value != 0);
+        return count;
+    }
+
+
+    /**
+     * Returns sum of all digits of the list. Takes time, proportional
+     * to the radix, not to the size of the list.
+     *
+     * @return sum of digits.
+     */
+    public long digitSum() {
+        long sum = 0;
+        if (compact != NONE) {
+            for (long value = compact; value != 0; value /= radix) {
+                sum += value % radix;
+            }
+            return sum;
+        }
+        if (counts == null) {
+            return 0;
+        }
+        for (int digit = 1; digit < radix; digit++) {
+            sum += (long) digit * counts[digit];
+        }
+        return sum;
+    }
+
+
+    /**
+     * Returns number of occurrences of the object, which is zero
+     * unless it is a valid digit.
+     */
+    private int count(Object o) {
+        return o instanceof Byte ? digitCount((Byte) o) : 0;
+    }
+
+
+    /**
+     * Appends digits of decimal number, converted to the scale of the list.
+     * Leaves the list empty if the value is not a valid decimal number.
+     */
+    private void appendDecimal(String value) {
+        byte[] decimal = Digits.parse(value, DECIMAL);
+        if (decimal == null) {
+            return;
+        }
+        long number = Digits.toLong(decimal, DECIMAL);
+        if (number != NONE) {
+            compact = number;
+            size = Digits.length(number, radix);
+            return;
+        }
+        appendAll(Digits.convert(decimal, DECIMAL, radix));
+    }
+
+
+    /**
+     * Stores digits of empty list in compact mode if they are a normalized
+     * number, which fits in a <tt>long</tt>, or links them into nodes.
+     */
+    private void init(byte[] digits) {
+        long value = Digits.toLong(digits, radix);
+        if (value != NONE) {
+            compact = value;
+            size = digits.length;
+        } else {
+            appendAll(digits);
+        }
+    }
+
+
+    /**
+     * Leaves compact mode, linking digits of the value into nodes.
+     */
+    private void inflate() {
+        if (compact != NONE) {
+            byte[] digits = Digits.valueOf(compact, radix);
+            compact = NONE;
+            size = 0;
+            appendAll(digits);
+        }
+    }
+
+
+    private void appendAll(byte[] digits) {
+        NodePool pool = NodePool.local();
+        for (byte digit : digits) {
+            linkBefore(pool, digit, null);
+        }
+        pool.flush();
+    }
+
+
+    /**
+     * Returns digits of the list, most significant first.
+     */
+    byte[] digits() {
+        if (compact != NONE) {
+            return Digits.valueOf(compact, radix);
+        }
+        byte[] result = new byte[size];
+        int i = 0;
+        for (Node x = head; x != null; x = x.next) {
+            result[i++] = x.value;
+        }
+        return result;
+    }
 
+
+    /**
+     * Returns digits of the given number in the given scale of notation.
+     * Lists other than <tt>NumberListImpl</tt> are assumed to be in that scale already.
+     */
+    private static byte[] digitsOf(NumberList list, int radix) {
+        if (list instanceof NumberListImpl) {
+            NumberListImpl impl = (NumberListImpl) list;
+            if (impl.compact != NONE) {
+                return Digits.valueOf(impl.compact, radix);
+            }
+            return impl.radix == radix || impl.isEmpty()
+                    ? impl.digits() : Digits.convert(impl.digits(), impl.radix, radix);
+        }
+        byte[] result = new byte[list.size()];
+        int i = 0;
+        for (Byte digit : list) {
+            result[i++] = digit;
+        }
+        return result;
+    }
+
+
+    private byte checkDigit(Byte digit) {
+        if (digit == null) {
+            throw new NullPointerException("NumberList does not permit null elements");
+        }
+        if (digit < 0 || digit >= radix) {
+            throw new IllegalArgumentException("Not a digit in scale " + radix + ": " + digit);
+        }
+        return digit;
+    }
+
+
+    private void checkElementIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+
+    private void checkPositionIndex(int index) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+
+    private static void checkRange(int fromIndex, int toIndex, int size) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException(
+                    "fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", Size: " + size);
+        }
+    }
+
+
+    /**
+     * Returns node at the given index, walking from the nearest end.
+     */
+    private Node node(int index) {
+        if (index < (size >> 1)) {
+            Node x = head;
+            for (int i = 0; i < index; i++) {
+                x = x.next;
+            }
+            return x;
+        }
+        Node x = tail;
+        for (int i = size - 1; i > index; i--) {
+            x = x.prev;
+        }
+        return x;
+    }
+
+
+    private void linkLast(byte digit) {
+        linkBefore(NodePool.local(), digit, null);
+    }
+
+
+    private void linkBefore(byte digit, Node succ) {
+        linkBefore(NodePool.local(), digit, succ);
+    }
+
+
+    /**
+     * Links new node before <tt>succ</tt>, or at the end if <tt>succ</tt> is null.
+     */
+    private void linkBefore(NodePool pool, byte digit, Node succ) {
+        Node pred = succ == null ? tail : succ.prev;
+        Node node = pool.take(pred, digit, succ);
+        if (counts == null) {
+            counts = new int[radix];
+        }
+        counts[digit]++;
+        if (pred == null) {
+            head = node;
+        } else {
+            pred.next = node;
+        }
+        if (succ == null) {
+            tail = node;
+        } else {
+            succ.prev = node;
+        }
+        size++;
+        modCount++;
+    }
+
+
+    private byte unlink(Node x) {
+        return unlink(NodePool.local(), x);
+    }
+
+
+    /**
+     * Unlinks the node and returns it to the pool.
+     */
+    private byte unlink(NodePool pool, Node x) {
+        Node pred = x.prev;
+        Node succ = x.next;
+        if (pred == null) {
+            head = succ;
+        } else {
+            pred.next = succ;
+        }
+        if (succ == null) {
+            tail = pred;
+        } else {
+            succ.prev = pred;
+        }
+        size--;
+        modCount++;
+        byte value = x.value;
+        counts[value]--;
+        pool.put(x);
+        return value;
+    }
+
+
+    /**
+     * Replaces digit of the node and returns the old one.
+     */
+    private byte replace(Node x, byte digit) {
+        byte old = x.value;
+        counts[old]--;
+        counts[digit]++;
+        x.value = digit;
+        return old;
+    }
+
+
+    /**
+     * Nodes at every <tt>stride</tt>-th index from <tt>origin</tt>,
+     * shared by the spliterators, split from the same one.
+     */
+    private final class Anchors {
+        private static final int COUNT = 1024;
+        private static final int MIN_STRIDE = 64;
+
+        private Node[] nodes;
+        private int origin;
+        private int stride;
+
+        /**
+         * Records anchors of the range, starting at the given node,
+         * unless they are recorded already.
+         */
+        void build(Node first, int from, int to) {
+            if (nodes != null) {
+                return;
+            }
+            origin = from;
+            stride = Math.max(MIN_STRIDE, (to - from) / COUNT);
+            nodes = new Node[(to - from + stride - 1) / stride];
+            Node x = first;
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = x;
+                for (int j = 0; j < stride && x != null; j++) {
+                    x = x.next;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Spliterator over range <tt>[index, fence)</tt> of the list.
+     */
+    private abstract class NodeSpliterator<S extends NodeSpliterator<S>> {
+        final Anchors anchors;
+        Node current;
+        int index;
+        final int fence;
+        final int expectedModCount = modCount;
+
+        NodeSpliterator(Anchors anchors, Node current, int index, int fence) {
+            this.anchors = anchors;
+            this.current = current;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        abstract S create(Node current, int index, int fence);
+
+        public S trySplit() {
+            if (fence - index < 2 * Anchors.MIN_STRIDE) {
+                return null;
+            }
+            checkForComodification();
+            anchors.build(current, index, fence);
+            int k = ((index + fence) / 2 - anchors.origin) / anchors.stride;
+            int mid = anchors.origin + k * anchors.stride;
+            if (mid <= index || mid >= fence) {
+                return null;
+            }
+            S prefix = create(current, index, mid);
+            current = anchors.nodes[k];
+            index = mid;
+            return prefix;
+        }
+
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED | Spliterator.NONNULL;
+        }
+
+        /**
+         * Returns next digit or -1 at the end of the range.
+         */
+        final int advance() {
+            if (index >= fence) {
+                return -1;
+            }
+            checkForComodification();
+            byte value = current.value;
+            current = current.next;
+            index++;
+            return value;
+        }
+
+        final void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+
+    private final class ByteSpliterator extends NodeSpliterator<ByteSpliterator> implements Spliterator<Byte> {
+        ByteSpliterator(Anchors anchors, Node current, int index, int fence) {
+            super(anchors, current, index, fence);
+        }
+
+        @Override
+        ByteSpliterator create(Node current, int index, int fence) {
+            return new ByteSpliterator(anchors, current, index, fence);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Byte> action) {
+            int digit = advance();
+            if (digit < 0) {
+                return false;
+            }
+            action.accept((byte) digit);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Byte> action) {
+            Node x = current;
+            for (int i = index; i < fence; i++, x = x.next) {
+                action.accept(x.value);
+            }
+            current = x;
+            index = fence;
+            checkForComodification();
+        }
+    }
+
+
+    private final class IntSpliterator extends NodeSpliterator<IntSpliterator> implements Spliterator.OfInt {
+        IntSpliterator(Anchors anchors, Node current, int index, int fence) {
+            super(anchors, current, index, fence);
+        }
+
+        @Override
+        IntSpliterator create(Node current, int index, int fence) {
+            return new IntSpliterator(anchors, current, index, fence);
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            int digit = advance();
+            if (digit < 0) {
+                return false;
+            }
+            action.accept(digit);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            Node x = current;
+            for (int i = index; i < fence; i++, x = x.next) {
+                action.accept(x.value);
+            }
+            current = x;
+            index = fence;
+            checkForComodification();
+        }
+    }
+
+
+    /**
+     * List iterator over the whole list or over a sub list view.
+     */
+    private final class Itr implements ListIterator<Byte> {
+        private final SubList view;
+        private Node next;
+        private Node lastReturned;
+        private int nextIndex;
+        private int expectedModCount = modCount;
+
+        Itr(SubList view, Node next, int nextIndex) {
+            this.view = view;
+            this.next = next;
+            this.nextIndex = nextIndex;
+        }
+
+        private int limit() {
+            return view == null ? size : view.size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex < limit();
+        }
+
+        @Override
+        public Byte next() {
+            checkForComodification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            next = next.next;
+            nextIndex++;
+            return lastReturned.value;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return nextIndex > 0;
+        }
+
+        @Override
+        public Byte previous() {
+            checkForComodification();
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            next = next == null ? tail : next.prev;
+            lastReturned = next;
+            nextIndex--;
+            return lastReturned.value;
+        }
+
+        @Override
+        public int nextIndex() {
+            return nextIndex;
+        }
+
+        @Override
+        public int previousIndex() {
+            return nextIndex - 1;
+        }
+
+        @Override
+        public void remove() {
+            checkForComodification();
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            if (next == lastReturned) {
+                next = lastReturned.next;
+            } else {
+                nextIndex--;
+            }
+            unlink(lastReturned);
+            lastReturned = null;
+            structurallyModified(-1);
+        }
+
+        @Override
+        public void set(Byte e) {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            replace(lastReturned, checkDigit(e));
+        }
+
+        @Override
+        public void add(Byte e) {
+            checkForComodification();
+            linkBefore(checkDigit(e), next);
+            lastReturned = null;
+            nextIndex++;
+            structurallyModified(1);
+        }
+
+        private void structurallyModified(int delta) {
+            if (view != null) {
+                view.updateSize(delta);
+            }
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+
+    /**
+     * Iterator of a list in compact mode over a snapshot of its digits,
+     * so reading does not link nodes. The first change through the iterator
+     * links them and hands the iterator over to {@link Itr} at the same place.
+     */
+    private final class CompactItr implements ListIterator<Byte> {
+        private final byte[] digits;
+        private int nextIndex;
+        private int lastReturned = -1;
+        private final int expectedModCount = modCount;
+        private Itr nodes;
+
+        CompactItr(byte[] digits, int nextIndex) {
+            this.digits = digits;
+            this.nextIndex = nextIndex;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nodes != null ? nodes.hasNext() : nextIndex < digits.length;
+        }
+
+        @Override
+        public Byte next() {
+            if (nodes != null) {
+                return nodes.next();
+            }
+            checkForComodification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = nextIndex;
+            return digits[nextIndex++];
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return nodes != null ? nodes.hasPrevious() : nextIndex > 0;
+        }
+
+        @Override
+        public Byte previous() {
+            if (nodes != null) {
+                return nodes.previous();
+            }
+            checkForComodification();
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = --nextIndex;
+            return digits[nextIndex];
+        }
+
+        @Override
+        public int nextIndex() {
+            return nodes != null ? nodes.nextIndex() : nextIndex;
+        }
+
+        @Override
+        public int previousIndex() {
+            return nextIndex() - 1;
+        }
+
+        @Override
+        public void remove() {
+            nodes().remove();
+        }
+
+        @Override
+        public void set(Byte e) {
+            nodes().set(e);
+        }
+
+        @Override
+        public void add(Byte e) {
+            nodes().add(e);
+        }
+
+        /**
+         * Links digits of the list into nodes, unless some other change did,
+         * and returns iterator over the nodes in the state of this one.
+         */
+        private Itr nodes() {
+            if (nodes == null) {
+                checkForComodification();
+                inflate();
+                nodes = new Itr(null, nextIndex == size ? null : node(nextIndex), nextIndex);
+                nodes.lastReturned = lastReturned < 0 ? null : node(lastReturned);
+            }
+            return nodes;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+
+    /**
+     * Live view of a range of the list.<p>
+     *
+     * The range is anchored on the node before it and the node after it
+     * (<tt>null</tt> meaning the corresponding end of the list). Changes made
+     * through the view never touch these anchors, so they stay valid until
+     * the list is structurally modified some other way.
+     */
+    private final class SubList extends AbstractList<Byte> {
+        private final SubList parent;
+        private final Node before;
+        private final Node after;
+        private int size;
+        private int expectedModCount = NumberListImpl.this.modCount;
+
+        SubList(SubList parent, Node before, Node after, int size) {
+            this.parent = parent;
+            this.before = before;
+            this.after = after;
+            this.size = size;
+        }
+
+        private Node first() {
+            return before == null ? head : before.next;
+        }
+
+        private Node last() {
+            return after == null ? tail : after.prev;
+        }
+
+        private Node node(int index) {
+            if (index < (size >> 1)) {
+                Node x = first();
+                for (int i = 0; i < index; i++) {
+                    x = x.next;
+                }
+                return x;
+            }
+            Node x = last();
+            for (int i = size - 1; i > index; i--) {
+                x = x.prev;
+            }
+            return x;
+        }
+
+        @Override
+        public int size() {
+            checkForComodification();
+            return size;
+        }
+
+        @Override
+        public Byte get(int index) {
+            checkForComodification();
+            checkIndex(index, size);
+            return node(index).value;
+        }
+
+        @Override
+        public Byte set(int index, Byte element) {
+            checkForComodification();
+            checkIndex(index, size);
+            byte digit = checkDigit(element);
+            return replace(node(index), digit);
+        }
+
+        @Override
+        public void add(int index, Byte element) {
+            checkForComodification();
+            checkIndex(index, size + 1);
+            byte digit = checkDigit(element);
+            linkBefore(digit, index == size ? after : node(index));
+            updateSize(1);
+        }
+
+        @Override
+        public Byte remove(int index) {
+            checkForComodification();
+            checkIndex(index, size);
+            byte old = unlink(node(index));
+            updateSize(-1);
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            checkForComodification();
+            int removed = size;
+            NodePool pool = NodePool.local();
+            for (Node x = first(); x != after; ) {
+                Node next = x.next;
+                unlink(pool, x);
+                x = next;
+            }
+            pool.flush();
+            if (removed != 0) {
+                updateSize(-removed);
+            }
+        }
+
+        @Override
+        public Iterator<Byte> iterator() {
+            return listIterator(0);
+        }
+
+        @Override
+        public ListIterator<Byte> listIterator(int index) {
+            checkForComodification();
+            checkIndex(index, size + 1);
+            return new Itr(this, index == size ? after : node(index), index);
+        }
+
+        @Override
+        public List<Byte> subList(int fromIndex, int toIndex) {
+            checkForComodification();
+            checkRange(fromIndex, toIndex, size);
+            Node from = fromIndex == 0 ? before : node(fromIndex - 1);
+            Node to = toIndex == size ? after : node(toIndex);
+            return new SubList(this, from, to, toIndex - fromIndex);
+        }
+
+        /**
+         * Records structural modification made through this view
+         * in the view and all its enclosing views.
+         */
+        void updateSize(int delta) {
+            for (SubList view = this; view != null; view = view.parent) {
+                view.size += delta;
+                view.expectedModCount = NumberListImpl.this.modCount;
+            }
+        }
+
+        private void checkIndex(int index, int bound) {
+            if (index < 0 || index >= bound) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+        }
+
+        private void checkForComodification() {
+            if (NumberListImpl.this.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
     }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms of <tt>NumberListImpl</tt> operations.<p>
+ *
+ * Collection is off by default and can be turned on through JMX or with
+ * the <tt>ua.kpi.comsys.test2.metrics</tt> system property. While it is off,
+ * measured operations only read a volatile flag.
+ *
+ * @author Alexander Podrubailo
+ *
+ */
+public final class NumberListMetrics implements NumberListMetricsMXBean {
+
+    public static final String OBJECT_NAME = "ua.kpi.comsys.test2:type=NumberListMetrics";
+
+    static final String CHANGE_SCALE = "changeScale";
+    static final String LOAD = "load";
+    static final String SAVE = "save";
+    static final String MOD_POW = "modPow";
+    static final String SORT_ASCENDING = "sortAscending";
+    static final String SORT_DESCENDING = "sortDescending";
+
+    private static final int BUCKETS = 32;
+
+    /** Value of {@link #start()}, when collection is off. */
+    private static final long OFF = Long.MIN_VALUE;
+
+    private static final NumberListMetrics INSTANCE = new NumberListMetrics();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            // metrics stay available through getInstance()
+        }
+    }
+
+    private volatile boolean enabled = Boolean.getBoolean("ua.kpi.comsys.test2.metrics");
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    private final LongAdder bytesRead = new LongAdder();
+
+    private final LongAdder bytesWritten = new LongAdder();
+
+    private NumberListMetrics() {
+    }
+
+
+    /**
+     * Returns the metrics instance, registered in the platform MBean server.
+     */
+    public static NumberListMetrics getInstance() {
+        return INSTANCE;
+    }
+
+
+    /**
+     * Returns start time of a measured operation or a marker,
+     * telling {@link #record(String, long)} to ignore it.
+     */
+    static long start() {
+        return INSTANCE.enabled ? System.nanoTime() : OFF;
+    }
+
+
+    /**
+     * Records call of the operation, started at <tt>start</tt>.
+     */
+    static void record(String operation, long start) {
+        if (start != OFF) {
+            INSTANCE.stats.computeIfAbsent(operation, k -> new Stats()).add(System.nanoTime() - start);
+        }
+    }
+
+
+    static void recordRead(long start, long bytes) {
+        if (start != OFF) {
+            INSTANCE.bytesRead.add(bytes);
+        }
+    }
+
+
+    static void recordWritten(long start, long bytes) {
+        if (start != OFF) {
+            INSTANCE.bytesWritten.add(bytes);
+        }
+    }
+
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        stats.forEach((name, s) -> result.put(name, s.count.sum()));
+        return result;
+    }
+
+
+    @Override
+    public Map<String, Long> getOperationTimes() {
+        Map<String, Long> result = new TreeMap<>();
+        stats.forEach((name, s) -> result.put(name, s.nanos.sum()));
+        return result;
+    }
+
+
+    @Override
+    public Map<String, long[]> getLatencyHistograms() {
+        Map<String, long[]> result = new TreeMap<>();
+        stats.forEach((name, s) -> {
+            long[] buckets = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = s.histogram.get(i);
+            }
+            result.put(name, buckets);
+        });
+        return result;
+    }
+
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+
+    @Override
+    public int getNodePoolCapacity() {
+        return NodePool.getCapacity();
+    }
+
+
+    @Override
+    public void setNodePoolCapacity(int capacity) {
+        NodePool.setCapacity(capacity);
+    }
+
+
+    @Override
+    public Map<String, Long> getNodePoolStatistics() {
+        return NodePool.statistics();
+    }
+
+
+    @Override
+    public void reset() {
+        stats.clear();
+        bytesRead.reset();
+        bytesWritten.reset();
+        NodePool.resetStatistics();
+    }
+
+
+    private static final class Stats {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        void add(long elapsed) {
+            count.increment();
+            nanos.add(elapsed);
+            long micros = elapsed / 1000;
+            int bucket = 64 - Long.numberOfLeadingZeros(micros);
+            histogram.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+        }
+    }
+}
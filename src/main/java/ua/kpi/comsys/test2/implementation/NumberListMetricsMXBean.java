@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.Map;
+
+/**
+ * Management interface of <tt>NumberListImpl</tt> metrics, registered as
+ * <tt>ua.kpi.comsys.test2:type=NumberListMetrics</tt>.
+ *
+ * @author Alexander Podrubailo
+ *
+ */
+public interface NumberListMetricsMXBean {
+
+    /**
+     * Returns <tt>true</tt> if metrics are being collected.
+     */
+    boolean isEnabled();
+
+
+    /**
+     * Turns metrics collection on or off.
+     */
+    void setEnabled(boolean enabled);
+
+
+    /**
+     * Returns number of calls of each measured operation.
+     */
+    Map<String, Long> getOperationCounts();
+
+
+    /**
+     * Returns total time, spent in each measured operation, in nanoseconds.
+     */
+    Map<String, Long> getOperationTimes();
+
+
+    /**
+     * Returns latency histogram of each measured operation. Bucket <tt>i</tt>
+     * counts calls, which took less than <tt>2^i</tt> microseconds
+     * (and not less than the bound of the previous bucket). The last bucket
+     * counts everything slower.
+     */
+    Map<String, long[]> getLatencyHistograms();
+
+
+    /**
+     * Returns number of bytes, read from files.
+     */
+    long getBytesRead();
+
+
+    /**
+     * Returns number of bytes, written to files.
+     */
+    long getBytesWritten();
+
+
+    /**
+     * Returns maximum number of free nodes, pooled per thread.
+     * Zero means pooling is off.
+     */
+    int getNodePoolCapacity();
+
+
+    /**
+     * Sets maximum number of free nodes, pooled per thread.
+     * Zero turns pooling off.
+     */
+    void setNodePoolCapacity(int capacity);
+
+
+    /**
+     * Returns node pool statistics, summed over all threads: nodes
+     * allocated because the pool was empty, reused from the pool, returned
+     * to the pool and dropped because the pool was full.
+     */
+    Map<String, Long> getNodePoolStatistics();
+
+
+    /**
+     * Resets all collected metrics.
+     */
+    void reset();
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2014, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+/**
+ * Additional list operations, in the order of C7 values.
+ *
+ * @author Alexander Podrubailo
+ *
+ */
+enum Operation {
+
+    ADD {
+        @Override
+        byte[] apply(byte[] a, byte[] b, int radix) {
+            return Digits.add(a, b, radix);
+        }
+
+        @Override
+        long apply(long a, long b) {
+            long r = a + b;
+            return r < 0 ? -1 : r;
+        }
+    },
+
+    SUBTRACT {
+        @Override
+        byte[] apply(byte[] a, byte[] b, int radix) {
+            return Digits.subtract(a, b, radix);
+        }
+
+        @Override
+        long apply(long a, long b) {
+            return a >= b ? a - b : -1;
+        }
+    },
+
+    MULTIPLY {
+        @Override
+        byte[] apply(byte[] a, byte[] b, int radix) {
+            return Digits.multiply(a, b, radix);
+        }
+
+        @Override
+        long apply(long a, long b) {
+            return Math.multiplyHigh(a, b) != 0 || a * b < 0 ? -1 : a * b;
+        }
+    },
+
+    DIVIDE {
+        @Override
+        byte[] apply(byte[] a, byte[] b, int radix) {
+            return Digits.divide(a, b, radix);
+        }
+
+        @Override
+        long apply(long a, long b) {
+            return b == 0 ? -1 : a / b;
+        }
+    },
+
+    REMAINDER {
+        @Override
+        byte[] apply(byte[] a, byte[] b, int radix) {
+            return Digits.remainder(a, b, radix);
+        }
+
+        @Override
+        long apply(long a, long b) {
+            return b == 0 ? -1 : a % b;
+        }
+    },
+
+    AND {
+        @Override
+        byte[] apply(byte[] a, byte[] b, int radix) {
+            return Digits.and(a, b, radix);
+        }
+
+        @Override
+        long apply(long a, long b) {
+            return a & b;
+        }
+    },
+
+    OR {
+        @Override
+        byte[] apply(byte[] a, byte[] b, int radix) {
+            return Digits.or(a, b, radix);
+        }
+
+        @Override
+        long apply(long a, long b) {
+            return a | b;
+        }
+    };
+
+    /**
+     * Applies the operation to two numbers in the given scale of notation.
+     * Operands are not modified.
+     */
+    abstract byte[] apply(byte[] a, byte[] b, int radix);
+
+    /**
+     * Applies the operation to two non-negative values.
+     *
+     * @return the result or -1 if it is negative, undefined or does not fit
+     *         in a <tt>long</tt>; the digit form then gives the answer or the error.
+     */
+    abstract long apply(long a, long b);
+}
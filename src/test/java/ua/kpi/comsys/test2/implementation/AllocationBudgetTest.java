@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assume.assumeTrue;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that hot list operations stay within their allocation budgets.<p>
+ *
+ * Each operation is warmed up, then run many times, and the average number
+ * of bytes, allocated by the current thread per call, is compared with
+ * the budget. Budgets are for the fixture lists below and leave about
+ * twice the headroom of the current implementation.
+ */
+public class AllocationBudgetTest {
+
+    static final int WARMUP = 20000;
+    static final int RUNS = 1000;
+
+    static final String BIG = "123456789012345678901234567890";
+    static final String SMALL = "98765432109876543";
+
+    static com.sun.management.ThreadMXBean threads;
+
+    NumberListImpl list;
+    NumberListImpl same;
+    NumberListImpl small;
+    byte[] a;
+    byte[] b;
+
+    @BeforeClass
+    public static void beforeClass() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Before
+    public void setUp() {
+        list = new NumberListImpl(BIG);
+        same = new NumberListImpl(BIG);
+        small = new NumberListImpl(SMALL);
+        a = Digits.convert(Digits.parse(BIG, 10), 10, 2);
+        b = Digits.convert(Digits.parse(SMALL, 10), 10, 2);
+    }
+
+    private static void assertBudget(String name, long budget, Runnable operation) {
+        long perCall = allocatedPerCall(operation);
+        assertTrue(name + " allocates " + perCall + " bytes per call, budget is " + budget,
+                perCall <= budget);
+    }
+
+    private static long allocatedPerCall(Runnable operation) {
+        for (int i = 0; i < WARMUP; i++) {
+            operation.run();
+        }
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < RUNS; i++) {
+            operation.run();
+        }
+        return (threads.getThreadAllocatedBytes(id) - before) / RUNS;
+    }
+
+    @Test
+    public void testGet() {
+        assertBudget("get", 8, () -> list.get(list.size() / 2));
+    }
+
+    @Test
+    public void testIteration() {
+        assertBudget("iteration", 64, () -> {
+            for (Byte digit : list) {
+                digit.byteValue();
+            }
+        });
+    }
+
+    @Test
+    public void testEquals() {
+        assertBudget("equals", 64, () -> list.equals(same));
+    }
+
+    @Test
+    public void testSortAscending() {
+        assertBudget("sortAscending", 64, list::sortAscending);
+    }
+
+    @Test
+    public void testSortDescending() {
+        assertBudget("sortDescending", 64, list::sortDescending);
+    }
+
+    @Test
+    public void testShiftLeft() {
+        assertBudget("shiftLeft", 8, list::shiftLeft);
+    }
+
+    @Test
+    public void testShiftRight() {
+        assertBudget("shiftRight", 8, list::shiftRight);
+    }
+
+    @Test
+    public void testSwap() {
+        assertBudget("swap", 8, () -> list.swap(1, list.size() - 2));
+    }
+
+    @Test
+    public void testToString() {
+        assertBudget("toString", 512, list::toString);
+    }
+
+    @Test
+    public void testAdd() {
+        assertBudget("ADD", 256, () -> Operation.ADD.apply(a, b, 2));
+    }
+
+    @Test
+    public void testSubtract() {
+        assertBudget("SUBTRACT", 256, () -> Operation.SUBTRACT.apply(a, b, 2));
+    }
+
+    @Test
+    public void testMultiply() {
+        assertBudget("MULTIPLY", 1536, () -> Operation.MULTIPLY.apply(a, b, 2));
+    }
+
+    @Test
+    public void testDivide() {
+        assertBudget("DIVIDE", 16384, () -> Operation.DIVIDE.apply(a, b, 2));
+    }
+
+    @Test
+    public void testRemainder() {
+        assertBudget("REMAINDER", 16384, () -> Operation.REMAINDER.apply(a, b, 2));
+    }
+
+    @Test
+    public void testAnd() {
+        assertBudget("AND", 768, () -> Operation.AND.apply(a, b, 2));
+    }
+
+    @Test
+    public void testOr() {
+        assertBudget("OR", 768, () -> Operation.OR.apply(a, b, 2));
+    }
+
+    @Test
+    public void testAdditionalOperation() {
+        assertBudget("additionalOperation", 4096, () -> list.additionalOperation(small));
+    }
+
+    @Test
+    public void testCompactAdditionalOperation() {
+        assertBudget("compact additionalOperation", 256, () -> small.additionalOperation(small));
+    }
+
+    @Test
+    public void testCompactChangeScale() {
+        assertBudget("compact changeScale", 96, small::changeScale);
+    }
+
+    @Test
+    public void testPooledResults() {
+        Runnable operation = () -> list.additionalOperation(small).clear();
+        NumberListMetrics metrics = NumberListMetrics.getInstance();
+        int capacity = metrics.getNodePoolCapacity();
+        try {
+            metrics.setNodePoolCapacity(0);
+            long unpooled = allocatedPerCall(operation);
+            metrics.setNodePoolCapacity(1 << 16);
+            long pooled = allocatedPerCall(operation);
+            assertTrue("pooled result allocates " + pooled + " bytes per call, unpooled " + unpooled,
+                    2 * pooled <= unpooled);
+        } finally {
+            metrics.setNodePoolCapacity(capacity);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncFileListTest {
+
+    Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("async");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (File f : dir.toFile().listFiles()) {
+            f.delete();
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        File big = new File(FileListTest.FILE_BIG);
+        NumberListImpl list = NumberListImpl.loadAsync(big.toPath()).get();
+
+        assertEquals(new NumberListImpl(big), list);
+    }
+
+    @Test
+    public void testLoadFirstLineOnly() throws Exception {
+        Path f = dir.resolve("lines.txt");
+        Files.write(f, " 227 \n15\n".getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals("227", NumberListImpl.loadAsync(f).get().toDecimalString());
+    }
+
+    @Test
+    public void testLoadInvalid() throws Exception {
+        Path f = dir.resolve("invalid.txt");
+        Files.write(f, "12a3".getBytes(StandardCharsets.US_ASCII));
+
+        assertTrue(NumberListImpl.loadAsync(f).get().isEmpty());
+        assertTrue(NumberListImpl.loadAsync(new File(FileListTest.FILE_EMPTY).toPath()).get().isEmpty());
+    }
+
+    @Test
+    public void testLoadMissing() throws InterruptedException {
+        try {
+            NumberListImpl.loadAsync(dir.resolve("missing.txt")).get();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NoSuchFileException);
+            return;
+        }
+        throw new AssertionError("Missing file was loaded");
+    }
+
+    @Test
+    public void testManySaves() throws Exception {
+        NumberListImpl list = new NumberListImpl(new File(FileListTest.FILE_BIG));
+        String expected = list.toDecimalString();
+
+        CompletableFuture<?>[] saves = new CompletableFuture<?>[200];
+        for (int i = 0; i < saves.length; i++) {
+            saves[i] = list.saveAsync(dir.resolve(i + ".txt"));
+        }
+        CompletableFuture.allOf(saves).get();
+
+        for (int i = 0; i < saves.length; i++) {
+            assertEquals(expected, new String(Files.readAllBytes(dir.resolve(i + ".txt")), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void testSaveEmpty() throws Exception {
+        Path f = dir.resolve("empty.txt");
+        new NumberListImpl().saveAsync(f).get();
+
+        assertEquals(0, Files.size(f));
+    }
+
+    /**
+     * Returns size of the file, or zero if it does not exist yet.
+     */
+    private static long size(Path f) throws IOException {
+        return Files.exists(f) ? Files.size(f) : 0;
+    }
+
+    @Test
+    public void testCancelSave() throws Exception {
+        byte[] digits = new byte[256 * AsyncFileIO.CHUNK];
+        Arrays.fill(digits, (byte) 7);
+        Path f = dir.resolve("cancelled.txt");
+
+        CompletableFuture<Void> save = AsyncFileIO.write(f, digits, 10, NumberListMetrics.start());
+        while (size(f) == 0) {
+            Thread.onSpinWait();
+        }
+        assertTrue("save completed before it was cancelled", save.cancel(true));
+
+        Thread.sleep(200);
+        long written = size(f);
+        assertTrue(written < digits.length);
+        Thread.sleep(200);
+        assertEquals(written, size(f));
+    }
+
+    @Test
+    public void testCancelLoad() throws Exception {
+        Path f = dir.resolve("big.txt");
+        byte[] chars = new byte[64 * AsyncFileIO.CHUNK];
+        Arrays.fill(chars, (byte) '7');
+        Files.write(f, chars);
+        AtomicInteger parsed = new AtomicInteger();
+
+        // the first read is in flight when the future is returned
+        CompletableFuture<Integer> load = AsyncFileIO.read(f, decimal -> parsed.incrementAndGet(), n -> 0,
+                NumberListMetrics.start());
+        assertTrue(load.cancel(true));
+        assertEquals(Integer.valueOf(1),
+                AsyncFileIO.read(f, decimal -> parsed.incrementAndGet(), n -> 0, NumberListMetrics.start()).get());
+        Thread.sleep(200);
+
+        assertTrue(load.isCancelled());
+        assertEquals(1, parsed.get());
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompactNumberTest {
+
+    static final int[] RADIXES = {2, 3, 8, 10, 16};
+
+    @Test
+    public void testSameAsDigits() {
+        Random random = new Random(7);
+        for (int radix : RADIXES) {
+            for (int i = 0; i < 200; i++) {
+                long value = i < 3 ? new long[] {0, 1, Long.MAX_VALUE}[i] : random.nextLong() >>> 1 + random.nextInt(63);
+                byte[] digits = Digits.parse(Long.toString(value, radix).toUpperCase(), radix);
+                NumberListImpl compact = new NumberListImpl(radix, digits);
+                NumberListImpl nodes = new NumberListImpl(radix, new byte[0]);
+                for (byte digit : digits) {
+                    nodes.add(digit);
+                }
+
+                assertEquals(nodes.size(), compact.size());
+                assertEquals(nodes.toString(), compact.toString());
+                assertEquals(Long.toString(value), compact.toDecimalString());
+                assertEquals(nodes.digitSum(), compact.digitSum());
+                for (int digit = 0; digit < radix; digit++) {
+                    assertEquals(nodes.digitCount(digit), compact.digitCount(digit));
+                }
+                assertEquals(new NumberListImpl(radix, digits), compact);
+                assertEquals(nodes.changeScale(10), compact.changeScale(10));
+                assertEquals(nodes.hashCode(), compact.hashCode());
+                assertEquals(nodes, compact);
+            }
+        }
+    }
+
+    @Test
+    public void testOperationsMatchDigits() {
+        Random random = new Random(11);
+        for (Operation operation : Operation.values()) {
+            for (int i = 0; i < 500; i++) {
+                long a = random.nextLong() >>> 1 + random.nextInt(63);
+                long b = i % 10 == 0 ? 0 : random.nextLong() >>> 1 + random.nextInt(63);
+                long expected;
+                try {
+                    expected = Digits.toLong(operation.apply(Digits.valueOf(a, 10), Digits.valueOf(b, 10), 10), 10);
+                } catch (ArithmeticException e) {
+                    expected = -1;
+                }
+                assertEquals(operation + " " + a + " " + b, expected, operation.apply(a, b));
+            }
+        }
+    }
+
+    @Test
+    public void testOverflowPromotes() {
+        NumberListImpl max = new NumberListImpl(Long.toString(Long.MAX_VALUE));
+        NumberListImpl sum = max.additionalOperation(new NumberListImpl("1"));
+        assertEquals("9223372036854775808", sum.toDecimalString());
+        assertEquals(new NumberListImpl("9223372036854775808"), sum);
+
+        assertEquals(-1, Operation.ADD.apply(Long.MAX_VALUE, 1));
+        assertEquals(-1, Operation.MULTIPLY.apply(Long.MAX_VALUE / 2, 3));
+        assertEquals(-1, Operation.MULTIPLY.apply(1L << 31, 1L << 32));
+        assertEquals(Long.MAX_VALUE, Operation.ADD.apply(Long.MAX_VALUE - 1, 1));
+        assertEquals(3037000499L * 3037000499L, Operation.MULTIPLY.apply(3037000499L, 3037000499L));
+        assertEquals(-1, Operation.SUBTRACT.apply(1, 2));
+    }
+
+    @Test
+    public void testReadsKeepCompactMode() {
+        Random random = new Random(13);
+        for (int radix : RADIXES) {
+            for (int i = 0; i < 100; i++) {
+                long value = random.nextLong() >>> 1 + random.nextInt(63);
+                byte[] digits = Digits.valueOf(value, radix);
+                NumberListImpl compact = new NumberListImpl(radix, digits);
+                NumberListImpl nodes = new NumberListImpl(radix, new byte[0]);
+                for (byte digit : digits) {
+                    nodes.add(digit);
+                }
+
+                for (int j = 0; j < digits.length; j++) {
+                    assertEquals(nodes.get(j), compact.get(j));
+                }
+                assertEquals(nodes.hashCode(), compact.hashCode());
+                assertArrayEquals(nodes.toArray(), compact.toArray());
+                assertEquals(nodes, new ArrayList<>(compact));
+                assertEquals(compact, nodes);
+                assertEquals(0, compact.compareTo(nodes));
+                assertEquals(0, nodes.compareTo(compact));
+                for (byte digit = 0; digit < radix; digit++) {
+                    assertEquals(nodes.indexOf(digit), compact.indexOf(digit));
+                    assertEquals(nodes.lastIndexOf(digit), compact.lastIndexOf(digit));
+                }
+                ListIterator<Byte> backwards = compact.listIterator(digits.length);
+                for (int j = digits.length - 1; j >= 0; j--) {
+                    assertEquals(j, backwards.previousIndex());
+                    assertEquals(digits[j], (byte) backwards.previous());
+                }
+                assertEquals(nodes.digitStream().sum(), compact.digitStream().parallel().sum());
+                assertEquals(nodes, StreamSupport.stream(compact.spliterator(), true).collect(Collectors.toList()));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentReads() {
+        NumberListImpl list = new NumberListImpl(Long.toString(Long.MAX_VALUE));
+        String expected = list.toString();
+        int hash = new ArrayList<>(list).hashCode();
+
+        IntStream.range(0, 10000).parallel().forEach(i -> {
+            assertEquals(expected.charAt(i % 63) - '0', (int) list.get(i % 63));
+            assertEquals(hash, list.hashCode());
+            assertEquals(63, list.digitStream().count());
+        });
+        assertEquals(expected, list.toString());
+    }
+
+    @Test
+    public void testIteratorChangesLinkNodes() {
+        NumberListImpl compact = new NumberListImpl(10, Digits.parse("12345", 10));
+        List<Byte> expected = new ArrayList<>(compact);
+        ListIterator<Byte> it = compact.listIterator();
+        ListIterator<Byte> model = expected.listIterator();
+        for (ListIterator<Byte> x : Arrays.asList(it, model)) {
+            x.next();
+            x.next();
+            x.previous();
+            x.remove();
+            x.next();
+            x.set((byte) 7);
+            x.add((byte) 0);
+            x.previous();
+        }
+
+        assertEquals(model.nextIndex(), it.nextIndex());
+        assertEquals(model.next(), it.next());
+        assertEquals(expected, compact);
+        assertEquals("17045", compact.toString());
+        assertEquals(2, compact.digitCount(0) + compact.digitCount(7));
+    }
+
+    @Test
+    public void testMutatorsLeaveCompactMode() {
+        NumberListImpl list = new NumberListImpl(10, Digits.parse("120", 10));
+        assertTrue(list.contains((byte) 0));
+        assertFalse(list.contains((byte) 3));
+        list.add(0, (byte) 0);
+        assertEquals("0120", list.toString());
+        assertEquals(2, list.digitCount(0));
+        list.remove(0);
+        list.set(2, (byte) 5);
+        assertEquals("125", list.toDecimalString());
+        list.clear();
+        assertEquals("", list.toString());
+        assertEquals(0, list.digitCount(0));
+    }
+
+    @Test
+    public void testDivisionByZero() {
+        NumberListImpl a = new NumberListImpl(10, Digits.parse("10", 10));
+        NumberListImpl zero = new NumberListImpl(10, Digits.parse("0", 10));
+        for (Operation operation : new Operation[] {Operation.DIVIDE, Operation.REMAINDER}) {
+            try {
+                operation.apply(a.digits(), zero.digits(), 10);
+                fail(operation.name());
+            } catch (ArithmeticException expected) {
+                assertEquals(-1, operation.apply(10, 0));
+            }
+        }
+    }
+}
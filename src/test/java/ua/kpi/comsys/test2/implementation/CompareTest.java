@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompareTest {
+
+    static final int LENGTH = 1000;
+
+    private static byte[] randomDigits(Random random, int length, int radix) {
+        byte[] digits = new byte[length];
+        for (int i = 0; i < length; i++) {
+            digits[i] = (byte) random.nextInt(radix);
+        }
+        digits[0] = (byte) (1 + random.nextInt(radix - 1));
+        return digits;
+    }
+
+    @Test
+    public void testEqualsAcrossBlocks() {
+        byte[] digits = randomDigits(new Random(1), LENGTH, 10);
+        NumberListImpl list = new NumberListImpl(10, digits);
+        assertEquals(list, new NumberListImpl(10, digits.clone()));
+        assertEquals(list, new ArrayList<>(list));
+        for (int i : new int[] {0, 1, DigitBlocks.FIRST - 1, DigitBlocks.FIRST, 47, 48, 300, LENGTH - 1}) {
+            byte[] other = digits.clone();
+            other[i] = (byte) ((other[i] + 1) % 10);
+            NumberListImpl changed = new NumberListImpl(10, other);
+            assertNotEquals("difference at " + i, list, changed);
+            assertNotEquals("difference at " + i, changed, list);
+            assertEquals(Integer.signum(Byte.compare(digits[i], other[i])), list.compareTo(changed));
+        }
+    }
+
+    @Test
+    public void testCompareToMatchesBigInteger() {
+        Random random = new Random(2);
+        int[] radixes = {2, 3, 8, 10, 16};
+        for (int i = 0; i < 500; i++) {
+            int radix = radixes[random.nextInt(radixes.length)];
+            int otherRadix = radixes[random.nextInt(radixes.length)];
+            BigInteger a = new BigInteger(1 + random.nextInt(300), random);
+            BigInteger b = i % 5 == 0 ? a : new BigInteger(1 + random.nextInt(300), random);
+            NumberListImpl x = new NumberListImpl(radix, Digits.parse(a.toString(radix), radix));
+            NumberListImpl y = new NumberListImpl(otherRadix, Digits.parse(b.toString(otherRadix), otherRadix));
+            assertEquals(a + " " + b, a.compareTo(b), x.compareTo(y));
+            assertEquals(b.compareTo(a), y.compareTo(x));
+        }
+    }
+
+    @Test
+    public void testCompareToIgnoresLeadingZeros() {
+        NumberListImpl padded = new NumberListImpl(10, Digits.parse("000123", 10));
+        NumberListImpl plain = new NumberListImpl(10, Digits.parse("123", 10));
+        assertEquals(0, padded.compareTo(plain));
+        assertFalse(padded.equals(plain));
+        assertEquals(1, padded.compareTo(new NumberListImpl(10, Digits.parse("99", 10))));
+        assertEquals(-1, new NumberListImpl(10, Digits.parse("0000", 10)).compareTo(plain));
+
+        NumberListImpl empty = new NumberListImpl();
+        assertEquals(0, empty.compareTo(new NumberListImpl("0")));
+        assertTrue(empty.compareTo(plain) < 0);
+    }
+
+    @Test
+    public void testCompactAndLinked() {
+        NumberListImpl compact = new NumberListImpl("123456789");
+        NumberListImpl linked = new NumberListImpl("123456789");
+        linked.add(0, (byte) 0);
+        assertEquals(0, compact.compareTo(linked));
+        assertEquals(-1, compact.compareTo(new NumberListImpl("123456790")));
+        assertEquals(1, new NumberListImpl("99999999999999999999").compareTo(compact));
+    }
+}
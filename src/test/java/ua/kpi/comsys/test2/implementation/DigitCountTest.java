@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DigitCountTest {
+
+    /**
+     * Compares digit counts and sum of the list with a full scan.
+     */
+    private static void assertCounts(NumberListImpl list, int radix) {
+        int[] expected = new int[radix];
+        long sum = 0;
+        for (Byte digit : list) {
+            expected[digit]++;
+            sum += digit;
+        }
+        for (int digit = 0; digit < radix; digit++) {
+            assertEquals("count of " + digit, expected[digit], list.digitCount(digit));
+            assertEquals(expected[digit] != 0, list.contains((byte) digit));
+        }
+        assertEquals(sum, list.digitSum());
+    }
+
+    @Test
+    public void testMutators() {
+        int radix = 16;
+        NumberListImpl list = new NumberListImpl(radix, Digits.parse("FEDCBA9876543210", radix));
+        assertCounts(list, radix);
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            byte digit = (byte) random.nextInt(radix);
+            int size = list.size();
+            switch (random.nextInt(12)) {
+                case 0: list.add(digit); break;
+                case 1: list.add(random.nextInt(size + 1), digit); break;
+                case 2: if (size > 0) list.set(random.nextInt(size), digit); break;
+                case 3: if (size > 0) list.remove(random.nextInt(size)); break;
+                case 4: list.remove(Byte.valueOf(digit)); break;
+                case 5: list.addAll(Arrays.asList(digit, digit, (byte) 1)); break;
+                case 6: if (random.nextInt(10) == 0) list.removeAll(Arrays.asList(digit)); break;
+                case 7: if (size > 0) list.swap(random.nextInt(size), random.nextInt(size)); break;
+                case 8: list.shiftLeft(); list.sortDescending(); break;
+                case 9: {
+                    ListIterator<Byte> it = list.listIterator();
+                    while (it.hasNext()) {
+                        byte next = it.next();
+                        if (next == digit) {
+                            it.set((byte) 0);
+                        } else if (next == 1) {
+                            it.remove();
+                        }
+                    }
+                    it.add(digit);
+                    break;
+                }
+                case 10: {
+                    int from = random.nextInt(size + 1);
+                    List<Byte> view = list.subList(from, from + random.nextInt(size - from + 1));
+                    if (!view.isEmpty()) {
+                        view.set(0, digit);
+                        view.remove(view.size() - 1);
+                    }
+                    view.add(digit);
+                    if (random.nextInt(10) == 0) {
+                        view.clear();
+                    }
+                    break;
+                }
+                default: list.add(digit);
+            }
+            assertCounts(list, radix);
+        }
+        list.clear();
+        assertCounts(list, radix);
+    }
+
+    @Test
+    public void testLookupsAndBatchRemove() {
+        NumberListImpl list = new NumberListImpl(10, Digits.parse("1203004", 10));
+        assertEquals(-1, list.indexOf((byte) 9));
+        assertEquals(-1, list.lastIndexOf((byte) 9));
+        assertFalse(list.contains((byte) 12));
+        assertFalse(list.contains(3));
+        assertEquals(0, list.digitCount(-1));
+        assertEquals(0, list.digitCount(10));
+        assertEquals(3, list.digitCount(0));
+
+        assertFalse(list.removeAll(Arrays.asList((byte) 9)));
+        assertTrue(list.removeAll(Arrays.asList((byte) 0)));
+        assertEquals(new NumberListImpl(10, Digits.parse("1234", 10)), list);
+        assertTrue(list.retainAll(Arrays.asList((byte) 2, (byte) 4)));
+        assertEquals(new NumberListImpl(10, Digits.parse("24", 10)), list);
+        assertFalse(list.retainAll(Arrays.asList((byte) 2, (byte) 4)));
+        assertCounts(list, 10);
+    }
+
+    @Test
+    public void testConversions() {
+        NumberListImpl list = new NumberListImpl("255");
+        assertCounts(list.changeScale(2), 2);
+        assertCounts(list.changeScale(8), 8);
+        assertCounts(list.changeScale(16), 16);
+        assertCounts(list.changeScale(3), 3);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FileScaleConverterTest {
+
+    static String FILE_BIG = FileListTest.FILE_BIG;
+
+    File converted;
+    File restored;
+
+    @Before
+    public void setUp() throws IOException {
+        converted = File.createTempFile("converted", ".txt");
+        restored = File.createTempFile("restored", ".txt");
+    }
+
+    @After
+    public void tearDown() {
+        converted.delete();
+        restored.delete();
+    }
+
+    private static String read(File f) throws IOException {
+        return new String(Files.readAllBytes(f.toPath()), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testInMemory() throws IOException {
+        File big = new File(FILE_BIG);
+        NumberListImpl.convertFile(big, converted, 1 << 20);
+
+        assertEquals(new NumberListImpl(big).toString(), read(converted));
+    }
+
+    @Test
+    public void testSmallFile() throws IOException {
+        File big = new File(FILE_BIG);
+        NumberListImpl.convertFile(big, converted, FileScaleConverter.MIN_MEMORY);
+        assertEquals(new NumberListImpl(big).toString(), read(converted));
+
+        NumberListImpl.convertFileToDecimal(converted, restored, FileScaleConverter.MIN_MEMORY);
+        assertEquals(read(big), read(restored));
+    }
+
+    @Test
+    public void testAllScalesSpilled() throws IOException {
+        // 20000 bits against 2048 digits in memory at the smallest limit
+        BigInteger value = new BigInteger(20000, new Random(17)).setBit(19999);
+        int[] radixes = {2, 3, 8, 10, 16};
+        for (int from : radixes) {
+            Files.write(restored.toPath(), value.toString(from).getBytes(StandardCharsets.US_ASCII));
+            for (int to : radixes) {
+                FileScaleConverter.convert(restored.toPath(), from, converted.toPath(), to,
+                        FileScaleConverter.MIN_MEMORY);
+                assertEquals(from + " -> " + to, value.toString(to).toUpperCase(), read(converted));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLimitBelowMinimum() throws IOException {
+        NumberListImpl.convertFile(new File(FILE_BIG), converted, FileScaleConverter.MIN_MEMORY - 1);
+    }
+
+    @Test
+    public void testLargeSpilledRoundTrip() throws IOException {
+        StringBuilder digits = new StringBuilder("9");
+        Random random = new Random(31);
+        for (int i = 1; i < 30000; i++) {
+            digits.append((char) ('0' + random.nextInt(10)));
+        }
+        String decimal = digits.toString();
+        Files.write(restored.toPath(), decimal.getBytes(StandardCharsets.US_ASCII));
+
+        // about 100000 binary digits against 4096 in memory: halves and powers are spilled
+        long limit = 1 << 16;
+        NumberListImpl.convertFile(restored, converted, limit);
+        assertEquals(new BigInteger(decimal).toString(2), read(converted));
+
+        NumberListImpl.convertFileToDecimal(converted, restored, limit);
+        assertEquals(decimal, read(restored));
+    }
+
+    @Test
+    public void testAllScales() throws IOException {
+        String[] values = {ScaleOfNotationChangeTest.BINARY, ScaleOfNotationChangeTest.TERNARY,
+                ScaleOfNotationChangeTest.OCTAL, ScaleOfNotationChangeTest.DECIMAL,
+                ScaleOfNotationChangeTest.HEXADECIMAL};
+        int[] radixes = {2, 3, 8, 10, 16};
+        for (int i = 0; i < radixes.length; i++) {
+            Files.write(restored.toPath(), ("  00" + values[i] + "\n").getBytes(StandardCharsets.US_ASCII));
+            for (int j = 0; j < radixes.length; j++) {
+                FileScaleConverter.convert(restored.toPath(), radixes[i], converted.toPath(), radixes[j],
+                        FileScaleConverter.MIN_MEMORY);
+                assertEquals(radixes[i] + " -> " + radixes[j], values[j], read(converted));
+            }
+        }
+    }
+
+    @Test
+    public void testZeroAndEmpty() throws IOException {
+        Files.write(restored.toPath(), "000".getBytes(StandardCharsets.US_ASCII));
+        NumberListImpl.convertFile(restored, converted, FileScaleConverter.MIN_MEMORY);
+        assertEquals("0", read(converted));
+
+        NumberListImpl.convertFile(new File(FileListTest.FILE_EMPTY), converted, FileScaleConverter.MIN_MEMORY);
+        assertEquals("", read(converted));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testInvalidInput() throws IOException {
+        Files.write(restored.toPath(), "12a3".getBytes(StandardCharsets.US_ASCII));
+        NumberListImpl.convertFile(restored, converted, FileScaleConverter.MIN_MEMORY);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ModPowTest {
+
+    private static void assertModPow(BigInteger base, BigInteger exp, BigInteger mod) {
+        NumberListImpl list = new NumberListImpl(base.toString());
+        NumberListImpl exponent = new NumberListImpl(exp.toString());
+        NumberListImpl modulus = new NumberListImpl(mod.toString());
+
+        NumberListImpl result = list.modPow(exponent, modulus);
+
+        assertEquals(base + "^" + exp + " mod " + mod, base.modPow(exp, mod).toString(), result.toDecimalString());
+        assertEquals("Operand changed", base.toString(), list.toDecimalString());
+        assertEquals("Operand changed", exp.toString(), exponent.toDecimalString());
+        assertEquals("Operand changed", mod.toString(), modulus.toDecimalString());
+    }
+
+    @Test
+    public void testSmall() {
+        assertModPow(BigInteger.valueOf(4), BigInteger.valueOf(13), BigInteger.valueOf(497));
+        assertModPow(BigInteger.valueOf(15), BigInteger.valueOf(2), BigInteger.valueOf(7));
+        assertModPow(BigInteger.valueOf(15), BigInteger.ZERO, BigInteger.valueOf(7));
+        assertModPow(BigInteger.ZERO, BigInteger.valueOf(5), BigInteger.valueOf(7));
+        assertModPow(BigInteger.valueOf(15), BigInteger.valueOf(5), BigInteger.ONE);
+    }
+
+    @Test
+    public void testOddModulus() {
+        Random random = new Random(1);
+        for (int i = 0; i < 50; i++) {
+            BigInteger mod = new BigInteger(64 + random.nextInt(512), random).setBit(0);
+            assertModPow(new BigInteger(600, random), new BigInteger(1 + random.nextInt(700), random), mod);
+        }
+    }
+
+    @Test
+    public void testEvenModulus() {
+        Random random = new Random(2);
+        for (int i = 0; i < 50; i++) {
+            BigInteger mod = new BigInteger(64 + random.nextInt(512), random).setBit(1).clearBit(0);
+            assertModPow(new BigInteger(600, random), new BigInteger(1 + random.nextInt(700), random), mod);
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testZeroModulus() {
+        new NumberListImpl("15").modPow(new NumberListImpl("2"), new NumberListImpl("0"));
+    }
+}
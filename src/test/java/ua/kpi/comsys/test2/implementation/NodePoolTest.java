@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class NodePoolTest {
+
+    NumberListMetrics metrics = NumberListMetrics.getInstance();
+
+    @Before
+    public void setUp() {
+        metrics.setNodePoolCapacity(16);
+        metrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        metrics.setNodePoolCapacity(0);
+        metrics.reset();
+    }
+
+    /**
+     * Runs the test on a new thread, which starts with an empty pool.
+     */
+    private static void onNewThread(Runnable test) throws InterruptedException {
+        Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(() -> {
+            try {
+                test.run();
+            } catch (Throwable e) {
+                failure[0] = e;
+            }
+        });
+        thread.start();
+        thread.join();
+        if (failure[0] instanceof Error) {
+            throw (Error) failure[0];
+        }
+        if (failure[0] != null) {
+            throw new AssertionError(failure[0]);
+        }
+    }
+
+    @Test
+    public void testClearedNodesAreReused() throws InterruptedException {
+        onNewThread(() -> {
+            NumberListImpl list = new NumberListImpl("255");
+            list.set(0, (byte) 1); // links nodes of the compact number
+            list.clear();
+
+            NumberListImpl other = new NumberListImpl("255");
+            other.set(0, (byte) 1);
+            assertEquals("11111111", other.toString());
+        });
+
+        Map<String, Long> stats = metrics.getNodePoolStatistics();
+        assertEquals(Long.valueOf(8), stats.get("recycled"));
+        assertEquals(Long.valueOf(8), stats.get("reused"));
+    }
+
+    @Test
+    public void testCapacityIsRespected() throws InterruptedException {
+        onNewThread(() -> {
+            NumberListImpl list = new NumberListImpl("1048575");
+            list.remove(0);
+            list.clear();
+        });
+
+        Map<String, Long> stats = metrics.getNodePoolStatistics();
+        assertEquals(Long.valueOf(16), stats.get("recycled"));
+        assertEquals(Long.valueOf(4), stats.get("dropped"));
+    }
+
+    @Test
+    public void testResultsDrawFromPool() throws InterruptedException {
+        onNewThread(() -> {
+            NumberListImpl list = new NumberListImpl("18446744073709551615");
+            NumberListImpl cleared = new NumberListImpl("12");
+            cleared.set(0, (byte) 1); // links nodes of the compact number
+            cleared.clear();
+
+            NumberListImpl result = list.additionalOperation(list);
+
+            assertEquals("36893488147419103230", result.toDecimalString());
+        });
+        assertEquals(Long.valueOf(4), metrics.getNodePoolStatistics().get("reused"));
+    }
+
+    @Test
+    public void testLoweredCapacityTrimsFreeList() throws InterruptedException {
+        onNewThread(() -> {
+            NumberListImpl list = new NumberListImpl("255");
+            list.set(0, (byte) 1); // links nodes of the compact number
+            list.clear();
+
+            metrics.setNodePoolCapacity(0);
+            new NumberListImpl("255").set(0, (byte) 1);
+            metrics.setNodePoolCapacity(16);
+            new NumberListImpl("255").set(0, (byte) 1);
+        });
+
+        Map<String, Long> stats = metrics.getNodePoolStatistics();
+        assertEquals(Long.valueOf(8), stats.get("recycled"));
+        assertEquals(Long.valueOf(8), stats.get("dropped"));
+        assertEquals(Long.valueOf(0), stats.get("reused"));
+    }
+
+    @Test
+    public void testCompactReadsLinkNoNodes() throws InterruptedException {
+        onNewThread(() -> {
+            NumberListImpl cleared = new NumberListImpl("255");
+            cleared.set(0, (byte) 1); // links nodes of the compact number
+            cleared.clear();
+
+            NumberListImpl list = new NumberListImpl("1234567");
+            list.get(3);
+            list.hashCode();
+            list.indexOf((byte) 1);
+            list.toArray();
+            list.iterator().next();
+            list.listIterator(list.size()).previous();
+            list.digitStream().sum();
+            list.spliterator().tryAdvance(digit -> { });
+            list.equals(new NumberListImpl("1234567"));
+            list.compareTo(new NumberListImpl("7654321"));
+        });
+        assertEquals(Long.valueOf(0), metrics.getNodePoolStatistics().get("reused"));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NumberListEventsTest {
+
+    static final int ROUNDS = 100;
+
+
+    /**
+     * Operations run under a recording.
+     */
+    private interface Operations {
+        void run() throws Exception;
+    }
+
+
+    /**
+     * Runs operations, each emitting one event, under the recording and
+     * returns recorded events of the list.
+     */
+    private static List<RecordedEvent> record(Recording recording) throws Exception {
+        NumberListImpl list = new NumberListImpl("123456789012345678901234567890");
+        return record(recording, () -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                list.changeScale();
+                list.additionalOperation(list);
+                list.sortAscending();
+            }
+        });
+    }
+
+
+    /**
+     * Runs the operations under the recording and returns recorded events of
+     * the list.
+     */
+    private static List<RecordedEvent> record(Recording recording, Operations operations) throws Exception {
+        recording.start();
+        operations.run();
+        recording.stop();
+        Path file = Files.createTempFile("events", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().startsWith("ua.kpi.comsys.test2."))
+                    .collect(Collectors.toList());
+        } finally {
+            recording.close();
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testDefaultSettingsRecordNothing() throws Exception {
+        Recording recording = new Recording(Configuration.getConfiguration("default"));
+
+        assertEquals(0, record(recording).size());
+    }
+
+    @Test
+    public void testEnabledByName() throws Exception {
+        Recording recording = new Recording(Configuration.getConfiguration("default"));
+        recording.enable("ua.kpi.comsys.test2.Sort");
+
+        List<RecordedEvent> events = record(recording);
+        assertEquals(ROUNDS, events.size());
+        assertEquals("ua.kpi.comsys.test2.Sort", events.get(0).getEventType().getName());
+    }
+
+    @Test
+    public void testAsyncFileIO() throws Exception {
+        Recording recording = new Recording(Configuration.getConfiguration("default"));
+        recording.enable("ua.kpi.comsys.test2.FileIO");
+        NumberListImpl list = new NumberListImpl("123456789012345678901234567890");
+        Path file = Files.createTempFile("list", ".txt");
+
+        try {
+            List<RecordedEvent> events = record(recording, () -> {
+                list.saveAsync(file).get();
+                NumberListImpl.loadAsync(file).get();
+            });
+
+            assertEquals(2, events.size());
+            RecordedEvent save = events.stream().filter(e -> e.getBoolean("save")).findFirst().get();
+            RecordedEvent load = events.stream().filter(e -> !e.getBoolean("save")).findFirst().get();
+            for (RecordedEvent e : events) {
+                assertEquals(file.toString(), e.getString("path"));
+                assertEquals(Files.size(file), e.getLong("bytes"));
+            }
+            assertEquals(list.size(), save.getInt("digits"));
+            assertEquals(list.size(), load.getInt("digits"));
+            assertTrue(save.getEndTime().compareTo(load.getStartTime()) <= 0);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
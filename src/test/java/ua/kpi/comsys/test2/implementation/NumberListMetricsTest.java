@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NumberListMetricsTest {
+
+    NumberListMetrics metrics = NumberListMetrics.getInstance();
+
+    @Before
+    public void setUp() {
+        metrics.reset();
+        metrics.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        metrics.setEnabled(false);
+        metrics.reset();
+    }
+
+    @Test
+    public void testCountsOperations() {
+        NumberListImpl list = new NumberListImpl("1234");
+        list.changeScale();
+        list.changeScale();
+        list.sortDescending();
+
+        assertEquals(Long.valueOf(2), metrics.getOperationCounts().get(NumberListMetrics.CHANGE_SCALE));
+        assertEquals(Long.valueOf(1), metrics.getOperationCounts().get(NumberListMetrics.SORT_DESCENDING));
+        long[] histogram = metrics.getLatencyHistograms().get(NumberListMetrics.CHANGE_SCALE);
+        long total = 0;
+        for (long bucket : histogram) {
+            total += bucket;
+        }
+        assertEquals(2, total);
+    }
+
+    @Test
+    public void testCountsBytes() throws IOException {
+        File f = File.createTempFile("metrics", ".txt");
+        f.deleteOnExit();
+
+        new NumberListImpl("123456").saveList(f);
+        new NumberListImpl(f);
+
+        assertEquals(6, metrics.getBytesWritten());
+        assertEquals(6, metrics.getBytesRead());
+    }
+
+    @Test
+    public void testDisabled() {
+        metrics.setEnabled(false);
+        new NumberListImpl("1234").changeScale();
+
+        assertTrue(metrics.getOperationCounts().isEmpty());
+    }
+
+    @Test
+    public void testRegistered() throws Exception {
+        ObjectName name = new ObjectName(NumberListMetrics.OBJECT_NAME);
+        new NumberListImpl("1").changeScale();
+
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        assertFalse(ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(name, "OperationCounts").toString().isEmpty());
+    }
+}
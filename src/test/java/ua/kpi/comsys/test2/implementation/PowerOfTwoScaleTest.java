@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static ua.kpi.comsys.test2.implementation.ScaleOfNotationChangeTest.BINARY;
+import static ua.kpi.comsys.test2.implementation.ScaleOfNotationChangeTest.DECIMAL;
+import static ua.kpi.comsys.test2.implementation.ScaleOfNotationChangeTest.HEXADECIMAL;
+import static ua.kpi.comsys.test2.implementation.ScaleOfNotationChangeTest.OCTAL;
+
+public class PowerOfTwoScaleTest {
+
+    static final int[] RADIXES = {2, 8, 16};
+    static final String[] VALUES = {BINARY, OCTAL, HEXADECIMAL};
+
+    @Test
+    public void testListConversion() {
+        for (int i = 0; i < RADIXES.length; i++) {
+            NumberListImpl list = new NumberListImpl(RADIXES[i], Digits.parse(VALUES[i], RADIXES[i]));
+            for (int j = 0; j < RADIXES.length; j++) {
+                NumberListImpl actual = list.changeScale(RADIXES[j]);
+                assertEquals(RADIXES[i] + " -> " + RADIXES[j], VALUES[j], actual.toString());
+                assertEquals(DECIMAL, actual.toDecimalString());
+            }
+        }
+    }
+
+    @Test
+    public void testDigitsConversion() {
+        for (int i = 0; i < RADIXES.length; i++) {
+            byte[] digits = Digits.parse(VALUES[i], RADIXES[i]);
+            for (int j = 0; j < RADIXES.length; j++) {
+                byte[] expected = Digits.parse(VALUES[j], RADIXES[j]);
+                assertEquals(new NumberListImpl(RADIXES[j], expected),
+                        new NumberListImpl(RADIXES[j], Digits.convert(digits, RADIXES[i], RADIXES[j])));
+            }
+        }
+    }
+
+    @Test
+    public void testLeadingZerosAndZero() {
+        NumberListImpl list = new NumberListImpl(2, new byte[] {0, 0, 0, 1, 0, 1});
+        assertEquals("5", list.changeScale(8).toString());
+        assertEquals("5", list.changeScale(16).toString());
+
+        NumberListImpl zero = new NumberListImpl(16, new byte[] {0, 0});
+        assertEquals("0", zero.changeScale(2).toString());
+        assertEquals("0", zero.changeScale(8).toString());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SpliteratorTest {
+
+    static final int DECIMAL_DIGITS = 30000;
+
+    NumberListImpl list;
+    long sum;
+
+    @Before
+    public void setUp() {
+        StringBuilder value = new StringBuilder("1");
+        for (int i = 1; i < DECIMAL_DIGITS; i++) {
+            value.append((char) ('0' + i * 7 % 10));
+        }
+        list = new NumberListImpl(value.toString());
+        sum = 0;
+        for (Byte digit : list) {
+            sum += digit;
+        }
+    }
+
+    @Test
+    public void testCharacteristics() {
+        int expected = Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED | Spliterator.NONNULL;
+        assertEquals(expected, list.spliterator().characteristics());
+        assertEquals(expected, list.digitSpliterator().characteristics());
+        assertEquals(list.size(), list.digitSpliterator().getExactSizeIfKnown());
+    }
+
+    @Test
+    public void testBalancedSplit() {
+        Spliterator.OfInt suffix = list.digitSpliterator();
+        Spliterator.OfInt prefix = suffix.trySplit();
+        assertNotNull(prefix);
+        assertEquals(list.size(), prefix.estimateSize() + suffix.estimateSize());
+        assertTrue(Math.abs(prefix.estimateSize() - suffix.estimateSize()) <= 2 * 128);
+
+        int[] first = new int[1];
+        suffix.tryAdvance((int digit) -> first[0] = digit);
+        assertEquals((int) list.get((int) prefix.estimateSize()), first[0]);
+    }
+
+    @Test
+    public void testSmallListIsNotSplit() {
+        NumberListImpl small = new NumberListImpl("12345");
+        small.add((byte) 1); // links nodes of the compact number
+        assertNull(small.digitSpliterator().trySplit());
+    }
+
+    @Test
+    public void testParallelStreams() {
+        assertEquals(sum, list.digitStream().parallel().asLongStream().sum());
+        assertEquals(list.size(), list.digitStream().parallel().count());
+        assertEquals(sum, list.parallelStream().mapToLong(Byte::longValue).sum());
+        assertEquals(list.toString(), list.parallelStream().map(String::valueOf).collect(Collectors.joining()));
+        assertEquals(list, StreamSupport.stream(list.spliterator(), true).collect(Collectors.toList()));
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testFailFast() {
+        Spliterator.OfInt spliterator = list.digitSpliterator();
+        list.add((byte) 1);
+        spliterator.tryAdvance((int digit) -> { });
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2014-2015, NTUU KPI, Computer systems department and/or its affiliates. All rights reserved.
+ * NTUU KPI PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ */
+
+package ua.kpi.comsys.test2.implementation;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SubListTest {
+
+    NumberListImpl list;
+
+    @Before
+    public void setUp() {
+        list = new NumberListImpl();
+        for (int i = 0; i < 10; i++) {
+            list.add((byte) (i % 2));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        list.clear();
+        list = null;
+    }
+
+    @Test
+    public void testViewReadsParent() {
+        List<Byte> view = list.subList(3, 7);
+
+        assertEquals(4, view.size());
+        assertEquals(Byte.valueOf((byte) 1), view.get(0));
+        assertEquals(Byte.valueOf((byte) 0), view.get(3));
+        assertEquals(list.subList(3, 7), view);
+    }
+
+    @Test
+    public void testWritesThroughView() {
+        List<Byte> view = list.subList(2, 4);
+
+        view.set(1, (byte) 0);
+        view.add(0, (byte) 1);
+        view.remove(2);
+
+        assertEquals(2, view.size());
+        assertEquals(10, list.size());
+        assertEquals("0110010101", list.toString());
+    }
+
+    @Test
+    public void testClearThroughNestedView() {
+        List<Byte> view = list.subList(1, 9);
+        List<Byte> inner = view.subList(2, 5);
+
+        inner.clear();
+
+        assertTrue(inner.isEmpty());
+        assertEquals(5, view.size());
+        assertEquals(7, list.size());
+        assertEquals("0100101", list.toString());
+    }
+
+    @Test
+    public void testIteratorAddThroughView() {
+        List<Byte> view = list.subList(0, 2);
+        view.listIterator(2).add((byte) 1);
+
+        assertEquals(3, view.size());
+        assertEquals("01101010101", list.toString());
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testViewFailsAfterParentChange() {
+        List<Byte> view = list.subList(0, 5);
+        list.add((byte) 1);
+        view.size();
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testIteratorFailsAfterParentChange() {
+        Iterator<Byte> it = list.iterator();
+        it.next();
+        list.remove(0);
+        it.next();
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testViewFailsAfterShift() {
+        List<Byte> view = list.subList(0, 5);
+        list.shiftLeft();
+        view.get(0);
+    }
+}